@@ -0,0 +1,423 @@
+/*
+ * ************************************************************
+ * 文件：CodecGenerator.java  模块：ElegantBus.compiler.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:59:35
+ * 上次修改时间：2026年10月17日 21:55:10
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.compiler.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus.apt;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+
+/**
+ * 为跨进程事件类型生成编解码器，按字段顺序读写，不需要反射
+ * <p>
+ * 支持基本类型及其包装类、String、byte[]、枚举，以及同样满足条件的嵌套对象；
+ * 对象需要是公开的非抽象类，有公开的无参构造函数，每个字段是公开的或者有公开的 getter/setter。
+ * 不满足条件的类型不生成，运行时继续使用 JSON。
+ * 编解码器生成在固定包名下按分组命名的索引类中，接收进程没有用过事件总线类时运行时按分组名加载
+ */
+class CodecGenerator {
+    // 和运行时 EventCodecs 中的索引类包名和后缀一致
+    private static final String INDEX_PACKAGE = "cody.bus.codec";
+    private static final String INDEX_SUFFIX = "Codecs";
+    private static final ClassName EVENT_CODEC = ClassName.bestGuess("cody.bus.EventCodec");
+    private static final ClassName EVENT_OUTPUT = ClassName.bestGuess("cody.bus.EventOutput");
+    private static final ClassName EVENT_INPUT = ClassName.bestGuess("cody.bus.EventInput");
+    private static final ClassName ELEGANT_BUS = ClassName.bestGuess("cody.bus.ElegantBus");
+    private final Types mTypeUtils;
+    // 已经生成的编解码器，类型全名 -> 编解码器静态变量名
+    private final Map<String, String> mCodecs = new LinkedHashMap<>();
+    // 不能生成编解码器的类型，以及正在生成的类型（不支持循环引用）
+    private final Set<String> mUnsupported = new HashSet<>();
+    private final Set<String> mNames = new HashSet<>();
+    private final List<TypeSpec> mCodecTypes = new ArrayList<>();
+    private final List<FieldSpec> mCodecFields = new ArrayList<>();
+    private final CodeBlock.Builder mRegister = CodeBlock.builder();
+
+    CodecGenerator(Types typeUtils) {
+        mTypeUtils = typeUtils;
+    }
+
+    /**
+     * 为事件类型生成编解码器
+     *
+     * @param type 事件类型
+     * @return 是否生成了编解码器
+     */
+    boolean generate(TypeMirror type) {
+        return type != null && codecFor(type) != null;
+    }
+
+    /**
+     * 生成分组的编解码器索引类，类加载时注册，事件总线类加载时先加载索引类
+     *
+     * @param builder      事件总线类
+     * @param busClassName 事件总线类名
+     * @param description  文件说明
+     * @return 索引类文件，没有生成编解码器时为 null
+     */
+    JavaFile buildIndex(TypeSpec.Builder builder, String busClassName, String description) {
+        if (mCodecs.isEmpty()) {
+            return null;
+        }
+        ClassName indexName = ClassName.get(INDEX_PACKAGE, busClassName + INDEX_SUFFIX);
+        TypeSpec.Builder index = TypeSpec.classBuilder(indexName)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addJavadoc(description)
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build())
+                .addMethod(MethodSpec.methodBuilder("register")
+                        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                        .addJavadoc("类加载时已经注册，调用时确保类已经加载\n")
+                        .build());
+        for (FieldSpec field : mCodecFields) {
+            index.addField(field);
+        }
+        index.addStaticBlock(mRegister.build());
+        for (TypeSpec type : mCodecTypes) {
+            index.addType(type);
+        }
+        builder.addStaticBlock(CodeBlock.of("$T.register();\n", indexName));
+        return JavaFile.builder(INDEX_PACKAGE, index.build()).build();
+    }
+
+    private String codecFor(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        DeclaredType declaredType = (DeclaredType) type;
+        TypeElement element = (TypeElement) declaredType.asElement();
+        String qualifiedName = element.getQualifiedName().toString();
+        if (mCodecs.containsKey(qualifiedName)) {
+            return mCodecs.get(qualifiedName);
+        }
+        if (mUnsupported.contains(qualifiedName) || !isCandidate(declaredType, element)) {
+            return null;
+        }
+        mUnsupported.add(qualifiedName);
+        TypeSpec codec = element.getKind() == ElementKind.ENUM ? enumCodec(element) : classCodec(element);
+        if (codec == null) {
+            return null;
+        }
+        mUnsupported.remove(qualifiedName);
+        String fieldName = codec.name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+        ClassName codecName = ClassName.bestGuess(codec.name);
+        mCodecTypes.add(codec);
+        mCodecFields.add(FieldSpec.builder(codecName, fieldName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("new $T()", codecName)
+                .build());
+        mRegister.addStatement("$T.registerCodec($T.class, $L)", ELEGANT_BUS, ClassName.get(element), fieldName);
+        mCodecs.put(qualifiedName, fieldName);
+        return fieldName;
+    }
+
+    private boolean isCandidate(DeclaredType type, TypeElement element) {
+        String name = element.getQualifiedName().toString();
+        if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("android.")) {
+            // 基本类型和字符串已经内置，其他系统类型交给 JSON
+            return false;
+        }
+        if (!type.getTypeArguments().isEmpty() || !element.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        Set<Modifier> modifiers = element.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC)) {
+            return false;
+        }
+        if (element.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)
+                && element.getKind() != ElementKind.ENUM) {
+            return false;
+        }
+        if (element.getNestingKind() != NestingKind.TOP_LEVEL && element.getNestingKind() != NestingKind.MEMBER) {
+            return false;
+        }
+        return element.getKind() == ElementKind.ENUM
+                || (element.getKind() == ElementKind.CLASS && !modifiers.contains(Modifier.ABSTRACT));
+    }
+
+    private String codecName(TypeElement element) {
+        String name = element.getSimpleName() + "Codec";
+        int index = 1;
+        while (!mNames.add(name)) {
+            name = element.getSimpleName() + "Codec" + (++index);
+        }
+        return name;
+    }
+
+    private TypeSpec enumCodec(TypeElement element) {
+        TypeName typeName = ClassName.get(element);
+        return codecType(codecName(element), typeName,
+                CodeBlock.of("out.writeString(value.name());\n"),
+                CodeBlock.of("return $T.valueOf(in.readString());\n", typeName));
+    }
+
+    private TypeSpec classCodec(TypeElement element) {
+        if (!hasPublicDefaultConstructor(element)) {
+            return null;
+        }
+        List<Property> properties = new ArrayList<>();
+        if (!collectProperties(element, properties)) {
+            return null;
+        }
+        TypeName typeName = ClassName.get(element);
+        CodeBlock.Builder write = CodeBlock.builder();
+        CodeBlock.Builder read = CodeBlock.builder().addStatement("$T value = new $T()", typeName, typeName);
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            String local = "f" + i;
+            write.addStatement("$T $L = value.$L", TypeName.get(property.type), local, property.getter);
+            if (!addWrite(write, property.type, local)) {
+                return null;
+            }
+            CodeBlock readValue = readValue(property.type);
+            if (readValue == null) {
+                return null;
+            }
+            if (property.setter == null) {
+                read.addStatement("value.$L = $L", property.name, readValue);
+            } else {
+                read.addStatement("value.$L($L)", property.setter, readValue);
+            }
+        }
+        read.addStatement("return value");
+        return codecType(codecName(element), typeName, write.build(), read.build());
+    }
+
+    private TypeSpec codecType(String name, TypeName typeName, CodeBlock write, CodeBlock read) {
+        return TypeSpec.classBuilder(name)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addSuperinterface(ParameterizedTypeName.get(EVENT_CODEC, typeName))
+                .addMethod(MethodSpec.methodBuilder("write")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(EVENT_OUTPUT, "out")
+                        .addParameter(typeName, "value")
+                        .addCode(write)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("read")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(EVENT_INPUT, "in")
+                        .returns(typeName)
+                        .addCode(read)
+                        .build())
+                .build();
+    }
+
+    private boolean hasPublicDefaultConstructor(TypeElement element) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 父类的字段在前，按声明顺序读写
+     */
+    private boolean collectProperties(TypeElement element, List<Property> properties) {
+        TypeMirror superclass = element.getSuperclass();
+        if (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+            if (!superElement.getQualifiedName().contentEquals("java.lang.Object")
+                    && !collectProperties(superElement, properties)) {
+                return false;
+            }
+        }
+        List<ExecutableElement> methods = ElementFilter.methodsIn(element.getEnclosedElements());
+        for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            Property property = new Property();
+            property.name = field.getSimpleName().toString();
+            property.type = field.asType();
+            if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.FINAL)) {
+                property.getter = property.name;
+            } else {
+                String suffix = Character.toUpperCase(property.name.charAt(0)) + property.name.substring(1);
+                String getter = findGetter(methods, property.type, suffix);
+                String setter = findSetter(methods, property.type, "set" + suffix);
+                if (getter == null || setter == null) {
+                    return false;
+                }
+                property.getter = getter + "()";
+                property.setter = setter;
+            }
+            properties.add(property);
+        }
+        return true;
+    }
+
+    private String findGetter(List<ExecutableElement> methods, TypeMirror type, String suffix) {
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            if ((name.equals("get" + suffix) || (type.getKind() == TypeKind.BOOLEAN && name.equals("is" + suffix)))
+                    && method.getParameters().isEmpty()
+                    && method.getModifiers().contains(Modifier.PUBLIC)
+                    && !method.getModifiers().contains(Modifier.STATIC)
+                    && mTypeUtils.isSameType(method.getReturnType(), type)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private String findSetter(List<ExecutableElement> methods, TypeMirror type, String name) {
+        for (ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(name)
+                    && method.getParameters().size() == 1
+                    && method.getModifiers().contains(Modifier.PUBLIC)
+                    && !method.getModifiers().contains(Modifier.STATIC)
+                    && mTypeUtils.isSameType(method.getParameters().get(0).asType(), type)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private boolean addWrite(CodeBlock.Builder write, TypeMirror type, String local) {
+        String primitive = primitiveName(type);
+        if (primitive != null) {
+            write.addStatement("out.write$L($L)", primitive, local);
+            return true;
+        }
+        if (isString(type)) {
+            write.addStatement("out.writeString($L)", local);
+            return true;
+        }
+        if (isByteArray(type)) {
+            write.addStatement("out.writeBytes($L)", local);
+            return true;
+        }
+        CodeBlock value;
+        String boxed = boxedName(type);
+        if (boxed != null) {
+            value = CodeBlock.of("out.write$L($L)", boxed, local);
+        } else {
+            String codec = codecFor(type);
+            if (codec == null) {
+                return false;
+            }
+            value = CodeBlock.of("$L.write(out, $L)", codec, local);
+        }
+        // 可以为 null 的字段先写一个是否有值
+        write.addStatement("out.writeBoolean($L != null)", local)
+                .beginControlFlow("if ($L != null)", local)
+                .addStatement(value)
+                .endControlFlow();
+        return true;
+    }
+
+    private CodeBlock readValue(TypeMirror type) {
+        String primitive = primitiveName(type);
+        if (primitive != null) {
+            return CodeBlock.of("in.read$L()", primitive);
+        }
+        if (isString(type)) {
+            return CodeBlock.of("in.readString()");
+        }
+        if (isByteArray(type)) {
+            return CodeBlock.of("in.readBytes()");
+        }
+        String boxed = boxedName(type);
+        if (boxed != null) {
+            return CodeBlock.of("in.readBoolean() ? ($T) in.read$L() : null", TypeName.get(type), boxed);
+        }
+        String codec = codecFor(type);
+        if (codec == null) {
+            return null;
+        }
+        return CodeBlock.of("in.readBoolean() ? $L.read(in) : null", codec);
+    }
+
+    private String primitiveName(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "Boolean";
+            case BYTE:
+                return "Byte";
+            case SHORT:
+                return "Short";
+            case CHAR:
+                return "Char";
+            case INT:
+                return "Int";
+            case LONG:
+                return "Long";
+            case FLOAT:
+                return "Float";
+            case DOUBLE:
+                return "Double";
+            default:
+                return null;
+        }
+    }
+
+    private String boxedName(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        try {
+            return primitiveName(mTypeUtils.unboxedType(type));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean isString(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        Element element = ((DeclaredType) type).asElement();
+        return ((TypeElement) element).getQualifiedName().contentEquals("java.lang.String");
+    }
+
+    private boolean isByteArray(TypeMirror type) {
+        return type.getKind() == TypeKind.ARRAY && ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE;
+    }
+
+    private static class Property {
+        String name;
+        TypeMirror type;
+        // 读取字段的表达式，公开字段为字段名，否则为 getter 调用
+        String getter;
+        // 为 null 时直接给字段赋值
+        String setter;
+    }
+}
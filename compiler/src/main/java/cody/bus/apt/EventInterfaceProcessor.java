@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：EventInterfaceProcessor.java  模块：ElegantBus.compiler.main  项目：ElegantBus
- * 当前修改时间：2022年09月12日 17:58:58
- * 上次修改时间：2022年09月12日 17:47:29
+ * 当前修改时间：2026年10月17日 23:00:17
+ * 上次修改时间：2026年10月17日 22:59:35
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.compiler.main
- * Copyright (c) 2022
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -14,6 +14,7 @@ package cody.bus.apt;
 
 import com.google.auto.service.AutoService;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
@@ -43,6 +44,7 @@ import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
 
 import cody.bus.annotation.Event;
@@ -58,6 +60,7 @@ import cody.bus.apt.bean.EventGroupBean;
 public class EventInterfaceProcessor extends AbstractProcessor {
     private static final String RETURN_CLASS = "cody.bus.LiveDataWrapper";
     private static final String ELEGANT_BUS_CLASS = "cody.bus.ElegantBus";
+    private static final String EVENT_KEY_CLASS = "cody.bus.EventKey";
     private static final String GEN_PKG = ".cody";
     private static final String BUS = "Bus";
     private static final String FILE_DESCRIPTION =
@@ -66,6 +69,7 @@ public class EventInterfaceProcessor extends AbstractProcessor {
                     "by Cody.yi\n\n" +
                     "https://github.com/codyer/ElegantBus \n";
     private Elements mElementUtils;
+    private Types mTypeUtils;
     private Filer mFiler;
     private Messager mLog;
 
@@ -74,6 +78,7 @@ public class EventInterfaceProcessor extends AbstractProcessor {
         super.init(processingEnvironment);
         //初始化我们需要的基础工具
         mElementUtils = processingEnv.getElementUtils();
+        mTypeUtils = processingEnv.getTypeUtils();
         mFiler = processingEnv.getFiler();
         mLog = processingEnv.getMessager();
     }
@@ -151,7 +156,9 @@ public class EventInterfaceProcessor extends AbstractProcessor {
                 eventBean.setDescription(event.description() + event.value());
                 eventBean.setActive(event.active());
                 eventBean.setMultiProcess(event.multiProcess());
+                eventBean.setConflate(event.conflate());
                 eventBean.setEventType(e.asType().toString());
+                eventBean.setTypeMirror(e.asType());
                 eventBean.setEventName(variableName);
                 info.addEventBeans(eventBean);
             }
@@ -163,6 +170,10 @@ public class EventInterfaceProcessor extends AbstractProcessor {
         TypeSpec.Builder builder = TypeSpec.classBuilder(busClassName)
                 .addModifiers(Modifier.PUBLIC)
                 .addJavadoc(FILE_DESCRIPTION + "\n@see " + infoBean.getClassString() + "\n");
+        // 跨进程事件的类型生成编解码器，避免运行时反射
+        CodecGenerator codecGenerator = new CodecGenerator(mTypeUtils);
+        // 静态变量名 -> 事件名，不同的事件名可能生成相同的变量名
+        Map<String, String> keyNames = new HashMap<>();
         for (EventBean e : infoBean.getEventBeans()) {
             ClassName className = ClassName.bestGuess(RETURN_CLASS);
             TypeName returnType;
@@ -184,8 +195,30 @@ public class EventInterfaceProcessor extends AbstractProcessor {
             ClassName elegantBus = ClassName.bestGuess(ELEGANT_BUS_CLASS);
 
             if (infoBean.isActive() && e.isActive()) {
-                methodBuilder.addCode("return $T.getDefault($S, $S, " + getClassStr(eventTypeStr) + ", $L);\n",
-                        elegantBus, infoBean.getGroupName(), e.getEventName(), e.isMultiProcess());
+                // 事件标识只创建一次，保存为静态变量
+                ClassName eventKey = ClassName.bestGuess(EVENT_KEY_CLASS);
+                String keyName = generateKeyName(e.getEventName());
+                String same = keyNames.put(keyName, e.getEventName());
+                if (same != null) {
+                    mLog.printMessage(Diagnostic.Kind.ERROR, "Event(" + infoBean.getGroupName() + "." + e.getEventName()
+                            + ") conflicts with event(" + same + ") as " + keyName + ", please rename one of them.");
+                    continue;
+                }
+                FieldSpec.Builder keyBuilder = FieldSpec.builder(ParameterizedTypeName.get(eventKey, returnInType), keyName)
+                        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+                if (e.isConflate()) {
+                    keyBuilder.initializer("$T.obtain($S, $S, " + getClassStr(eventTypeStr) + ", $L, $L)",
+                            eventKey, infoBean.getGroupName(), e.getEventName(), e.isMultiProcess(), true);
+                } else {
+                    keyBuilder.initializer("$T.obtain($S, $S, " + getClassStr(eventTypeStr) + ", $L)",
+                            eventKey, infoBean.getGroupName(), e.getEventName(), e.isMultiProcess());
+                }
+                builder.addField(keyBuilder.build());
+                if (e.isMultiProcess() && !codecGenerator.generate(e.getTypeMirror())) {
+                    mLog.printMessage(Diagnostic.Kind.NOTE, "Event(" + infoBean.getGroupName() + "." + e.getEventName()
+                            + ") of type " + eventTypeStr + " uses built-in or JSON codec");
+                }
+                methodBuilder.addCode("return $T.getDefault($L);\n", elegantBus, keyName);
             } else {
                 methodBuilder.addCode("return $T.getStub();\n", elegantBus);
             }
@@ -195,11 +228,16 @@ public class EventInterfaceProcessor extends AbstractProcessor {
             }
             builder.addMethod(methodBuilder.build());
         }
+        JavaFile codecIndex = codecGenerator.buildIndex(builder, busClassName,
+                FILE_DESCRIPTION + "\n@see " + infoBean.getClassString() + "\n");
 
         TypeSpec typeSpec = builder.build();
         String packageName = infoBean.getPackageName() + GEN_PKG;
         try {
             JavaFile.builder(packageName, typeSpec).build().writeTo(mFiler);
+            if (codecIndex != null) {
+                codecIndex.writeTo(mFiler);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -211,6 +249,24 @@ public class EventInterfaceProcessor extends AbstractProcessor {
         return className + BUS;
     }
 
+    // 生成事件标识的静态变量名 testBean -> TEST_BEAN_KEY，连续的大写字母不拆开 loadURL -> LOAD_URL_KEY
+    private String generateKeyName(String eventName) {
+        StringBuilder keyName = new StringBuilder();
+        for (int i = 0; i < eventName.length(); i++) {
+            char c = eventName.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && eventName.charAt(i - 1) != '_') {
+                char previous = eventName.charAt(i - 1);
+                boolean wordEnd = Character.isUpperCase(previous)
+                        && i + 1 < eventName.length() && Character.isLowerCase(eventName.charAt(i + 1));
+                if (!Character.isUpperCase(previous) || wordEnd) {
+                    keyName.append('_');
+                }
+            }
+            keyName.append(Character.toUpperCase(c));
+        }
+        return keyName.append("_KEY").toString();
+    }
+
     private String getClassStr(String type) {
         if (!type.contains("<")) {
             return type + ".class";
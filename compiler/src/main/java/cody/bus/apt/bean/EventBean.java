@@ -1,17 +1,19 @@
 /*
  * ************************************************************
  * 文件：EventBean.java  模块：ElegantBus.compiler.main  项目：ElegantBus
- * 当前修改时间：2022年09月12日 17:58:58
- * 上次修改时间：2022年09月12日 17:47:29
+ * 当前修改时间：2026年10月17日 21:55:10
+ * 上次修改时间：2026年10月17日 21:37:33
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.compiler.main
- * Copyright (c) 2022
+ * Copyright (c) 2026
  * ************************************************************
  */
 
 package cody.bus.apt.bean;
 
+import javax.lang.model.type.TypeMirror;
+
 /**
  * Created by xu.yi. on 2019/4/2.
  * 根据注解获取的信息
@@ -22,6 +24,8 @@ public class EventBean {
     private String mDescription;
     private boolean mMultiProcess;
     private boolean mActive;
+    private boolean mConflate;
+    private TypeMirror mTypeMirror;
 
     public String getEventName() {
         return mEventName;
@@ -62,4 +66,20 @@ public class EventBean {
     public void setActive(final boolean active) {
         this.mActive = active;
     }
+
+    public boolean isConflate() {
+        return mConflate;
+    }
+
+    public void setConflate(final boolean conflate) {
+        this.mConflate = conflate;
+    }
+
+    public TypeMirror getTypeMirror() {
+        return mTypeMirror;
+    }
+
+    public void setTypeMirror(final TypeMirror typeMirror) {
+        this.mTypeMirror = typeMirror;
+    }
 }
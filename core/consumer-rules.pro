@@ -0,0 +1,2 @@
+# 注解生成的编解码器索引类，接收进程按分组名加载
+-keep class cody.bus.codec.** { *; }
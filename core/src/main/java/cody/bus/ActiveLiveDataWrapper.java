@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ActiveLiveDataWrapper.java  模块：ElegantBus.core.main  项目：ElegantBus
- * 当前修改时间：2023年06月01日 17:08:51
- * 上次修改时间：2023年06月01日 17:08:39
+ * 当前修改时间：2026年10月17日 22:54:55
+ * 上次修改时间：2026年10月17日 22:18:30
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.core.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -17,13 +17,12 @@ import android.os.Looper;
 import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
 import androidx.lifecycle.LifecycleOwner;
-import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.Observer;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -34,21 +33,58 @@ import java.util.List;
  */
 @SuppressWarnings("unused")
 public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
+    static final int START_VERSION = -1;
+    // 循环使用的值包裹类数量，必须是2的幂
+    private static final int SLOT_COUNT = 4;
     private int mSequence = 0;
     private int mStickySequence = -1;
+    // 每分发一个值版本加1，和 LiveData 一样用于判断观察者激活时是否需要补发最新值
+    private int mVersion = START_VERSION;
     private EventWrapper mEventWrapper;
-    private final List<ObserverWrapper<T>> mObserverWrappers;
-    private final MutableLiveData<ValueWrapper<T>> mMutableLiveData;
+    // 按优先级保存的所有订阅，分发顺序由这里决定
+    private final SubscriberList<T> mSubscribers = new SubscriberList<>();
+    // 生命周期拥有者 -> 拥有者的所有订阅，按对象本身区分
+    private final IdentityHashMap<LifecycleOwner, OwnerSubscriptions<T>> mOwnerSubscriptions =
+            new IdentityHashMap<>();
+    // 观察者 -> 在这个总线上的订阅，同一个观察者可以同时观察多个总线，按对象本身区分
+    private final IdentityHashMap<ObserverWrapper<T>, Subscription<T>> mObserverSubscriptions =
+            new IdentityHashMap<>();
+    private volatile int mActiveCount;
+    // 主线程分发使用的值包裹类，循环使用
+    private final ValueWrapper<T>[] mSlots = newSlots();
+    private int mSlotIndex = 0;
+    // 是否只保留最新值
+    private final boolean mConflate;
+    // 其他线程发送过来等待主线程分发的值
+    private final PendingValues<T> mPendingValues;
+    // 只保留最新值时，等待发送到其他进程的值，发送任务执行时取出
+    private final AtomicReference<T> mRemotePending = new AtomicReference<>();
+    private final AtomicLong mRemoteConflatedCount = new AtomicLong();
+    private final Runnable mRemoteTask = this::postPendingToOtherProcess;
+    private final ValueWrapper<T> mPolled = new ValueWrapper<>();
+    // 最新的值
+    private volatile ValueWrapper<T> mLatest;
+    private boolean mDispatching;
+    private boolean mDispatchInvalidated;
 
     ActiveLiveDataWrapper() {
-        mObserverWrappers = new ArrayList<>();
-        mMutableLiveData = new MutableLiveData<>();
+        mConflate = false;
+        mPendingValues = new PendingValues<>(false);
     }
 
-    ActiveLiveDataWrapper(final EventWrapper eventWrapper) {
-        mEventWrapper = eventWrapper;
-        mObserverWrappers = new ArrayList<>();
-        mMutableLiveData = new MutableLiveData<>();
+    ActiveLiveDataWrapper(final EventKey<T> eventKey) {
+        mEventWrapper = eventKey.newWrapper();
+        mConflate = eventKey.conflate;
+        mPendingValues = new PendingValues<>(mConflate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ValueWrapper<T>[] newSlots() {
+        ValueWrapper<T>[] slots = new ValueWrapper[SLOT_COUNT];
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            slots[i] = new ValueWrapper<>();
+        }
+        return slots;
     }
 
     /**
@@ -58,7 +94,7 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
      */
     @Override
     public boolean hasObservers() {
-        return mMutableLiveData.hasObservers();
+        return mSubscribers.size() > 0;
     }
 
     /**
@@ -68,7 +104,7 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
      */
     @Override
     public boolean hasActiveObservers() {
-        return mMutableLiveData.hasActiveObservers();
+        return mActiveCount > 0;
     }
 
     /**
@@ -79,10 +115,16 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
     @Nullable
     @Override
     public T getValue() {
-        if (mMutableLiveData.getValue() == null) {
+        ValueWrapper<T> latest = mLatest;
+        if (latest == null) {
             return null;
         }
-        return mMutableLiveData.getValue().value;
+        return latest.value;
+    }
+
+    @Override
+    public long getConflatedCount() {
+        return mPendingValues.conflatedCount() + mRemoteConflatedCount.get();
     }
 
     /**
@@ -96,13 +138,32 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
         postToCurrentProcess(value);
         //转发到其他进程
         if (mEventWrapper.multiProcess) {
-            BusFactory.ready().getSingleExecutorService().execute(() -> {
-                if (BusFactory.getDelegate() != null) {
-                    BusFactory.getDelegate().postToProcessManager(mEventWrapper, value);
-                } else {
-                    ElegantLog.w("you should use ElegantBusX to support multi process event bus.");
-                }
-            });
+            if (!mConflate) {
+                BusFactory.ready().getSingleExecutorService().execute(() -> postToOtherProcess(value));
+            } else if (mRemotePending.getAndSet(value) == null) {
+                BusFactory.ready().getSingleExecutorService().execute(mRemoteTask);
+            } else {
+                // 上一个值还没有发送，直接覆盖
+                mRemoteConflatedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 发送等待中的最新值，可能已经被重置粘性事件时提前发送
+     */
+    private void postPendingToOtherProcess() {
+        T value = mRemotePending.getAndSet(null);
+        if (value != null) {
+            postToOtherProcess(value);
+        }
+    }
+
+    private void postToOtherProcess(@NonNull T value) {
+        if (BusFactory.getDelegate() != null) {
+            BusFactory.getDelegate().postToProcessManager(mEventWrapper, value);
+        } else {
+            ElegantLog.w("you should use ElegantBusX to support multi process event bus.");
         }
     }
 
@@ -115,7 +176,12 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
      */
     @Override
     public void postToCurrentProcess(@NonNull T value) {
-        checkThread(() -> setValue(value));
+        // 还有其他线程发送的值没有分发时也进入队列，保证顺序
+        if (isMainThread() && mPendingValues.isEmpty()) {
+            setValue(value);
+        } else {
+            enqueue(value, false);
+        }
     }
 
     /**
@@ -125,7 +191,11 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
      */
     @Override
     public void postStickyToCurrentProcess(@NonNull T value) {
-        checkThread(() -> mMutableLiveData.setValue(new ValueWrapper<>(value, 0)));
+        if (isMainThread() && mPendingValues.isEmpty()) {
+            dispatchValue(nextSlot(value, 0));
+        } else {
+            enqueue(value, true);
+        }
     }
 
     /**
@@ -136,11 +206,22 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
         resetStickyToCurrentProcess();
         //转发到其他进程
         if (mEventWrapper.multiProcess) {
-            if (BusFactory.getDelegate() != null) {
-                BusFactory.getDelegate().resetSticky(mEventWrapper);
-            } else {
-                ElegantLog.w("you should use ElegantBusX to support multi process event bus.");
-            }
+            // 重置之前发送的值要先发出去，之后发送的值重新安排，不能被合并到重置之前
+            final T pending = mConflate ? mRemotePending.getAndSet(null) : null;
+            // 和 post 使用同一个线程，保证和之前发送的事件顺序一致
+            BusFactory.ready().getSingleExecutorService().execute(() -> {
+                if (pending != null) {
+                    postToOtherProcess(pending);
+                }
+                if (BusFactory.getDelegate() != null) {
+                    // 重置和发送的值共用序号，接收进程按顺序处理
+                    EventWrapper reset = mEventWrapper.copy(null);
+                    reset.seq = mEventWrapper.eventKey().nextSequence();
+                    BusFactory.getDelegate().resetSticky(reset);
+                } else {
+                    ElegantLog.w("you should use ElegantBusX to support multi process event bus.");
+                }
+            });
         }
     }
 
@@ -163,7 +244,180 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
     @MainThread
     @Override
     public void setValue(@NonNull T value) {
-        mMutableLiveData.setValue(new ValueWrapper<>(value, mSequence));
+        dispatchValue(nextSlot(value, mSequence));
+    }
+
+    /**
+     * 按优先级从高到低分发给激活的观察者
+     * 分发过程中产生新值时停止当前分发，从头分发最新的值，和 LiveData 一致
+     *
+     * @param valueWrapper 值
+     */
+    @MainThread
+    private void dispatchValue(@NonNull ValueWrapper<T> valueWrapper) {
+        mLatest = valueWrapper;
+        mVersion++;
+        if (mDispatching) {
+            mDispatchInvalidated = true;
+            return;
+        }
+        mDispatching = true;
+        do {
+            mDispatchInvalidated = false;
+            for (Subscription<T> subscription : mSubscribers.snapshot()) {
+                considerNotify(subscription);
+                if (mDispatchInvalidated) {
+                    break;
+                }
+            }
+        } while (mDispatchInvalidated);
+        mDispatching = false;
+    }
+
+    /**
+     * 激活的观察者没有收到最新值时分发
+     *
+     * @param subscription 订阅
+     */
+    @MainThread
+    private void considerNotify(@NonNull Subscription<T> subscription) {
+        ValueWrapper<T> latest = mLatest;
+        if (latest == null || !subscription.active || !subscription.isAttached()
+                || subscription.lastVersion >= mVersion) {
+            return;
+        }
+        subscription.lastVersion = mVersion;
+        subscription.observer.dispatch(latest, subscription.sequence);
+    }
+
+    /**
+     * 生命周期变化时更新激活状态，变为激活时补发最新值
+     *
+     * @param subscription 订阅
+     * @param active       是否激活
+     */
+    @MainThread
+    void activeStateChanged(@NonNull Subscription<T> subscription, boolean active) {
+        if (subscription.active == active || !subscription.isAttached()) {
+            return;
+        }
+        subscription.active = active;
+        mActiveCount += active ? 1 : -1;
+        if (active) {
+            considerNotify(subscription);
+        }
+    }
+
+    /**
+     * 取消订阅
+     *
+     * @param subscription 订阅
+     */
+    @MainThread
+    void detach(@NonNull Subscription<T> subscription) {
+        if (!mSubscribers.remove(subscription)) {
+            return;
+        }
+        if (mSubscribers.size() == 0) {
+            interestChanged(false);
+        }
+        if (subscription.active) {
+            subscription.active = false;
+            mActiveCount--;
+        }
+        OwnerSubscriptions<T> group = subscription.group;
+        if (group != null) {
+            group.remove(subscription);
+            if (group.isEmpty()) {
+                mOwnerSubscriptions.remove(group.owner);
+                group.owner.getLifecycle().removeObserver(group);
+            }
+        }
+        if (mObserverSubscriptions.get(subscription.observer) == subscription) {
+            mObserverSubscriptions.remove(subscription.observer);
+        }
+    }
+
+    /**
+     * 第一个观察者加入或者最后一个观察者移除时通知其他进程，没有观察者的进程不再接收这个事件
+     *
+     * @param interested 是否有观察者
+     */
+    @MainThread
+    private void interestChanged(boolean interested) {
+        if (mEventWrapper == null || !mEventWrapper.multiProcess) {
+            return;
+        }
+        // 和 post 使用同一个线程，保证订阅之后发送的事件能收到
+        BusFactory.ready().getSingleExecutorService().execute(() -> {
+            MultiProcess delegate = BusFactory.getDelegate();
+            if (delegate == null) {
+                return;
+            }
+            if (interested) {
+                delegate.subscribe(mEventWrapper);
+            } else {
+                delegate.unsubscribe(mEventWrapper);
+            }
+        });
+    }
+
+    /**
+     * 取出下一个值包裹类并赋值
+     * 只保留最新的一个，分发过程中观察者已经取出了值，循环使用不会影响之前的分发
+     *
+     * @param value    值
+     * @param sequence 序号
+     * @return 值包裹类
+     */
+    @MainThread
+    private ValueWrapper<T> nextSlot(@NonNull T value, int sequence) {
+        ValueWrapper<T> slot = mSlots[mSlotIndex];
+        mSlotIndex = (mSlotIndex + 1) & (SLOT_COUNT - 1);
+        return slot.set(value, sequence);
+    }
+
+    /**
+     * 其他线程发送的值先进入队列，由主线程统一分发
+     *
+     * @param value  值
+     * @param sticky 是否是粘性值
+     */
+    private void enqueue(@NonNull T value, boolean sticky) {
+        MainDispatcher dispatcher = BusFactory.ready().getMainDispatcher();
+        dispatcher.onEnqueue();
+        switch (mPendingValues.offer(value, sticky)) {
+            case PendingValues.SCHEDULE:
+                dispatcher.schedule(this);
+                break;
+            case PendingValues.CONFLATED:
+                dispatcher.onConflated();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 主线程中按顺序分发队列中的值
+     *
+     * @param max 最多分发的数量
+     * @return 实际分发的数量，小于 max 表示已经分发完
+     */
+    @MainThread
+    int drainPendingValues(int max) {
+        int count = 0;
+        while (count < max && mPendingValues.poll(mPolled)) {
+            T value = mPolled.value;
+            mPolled.value = null;
+            count++;
+            if (mPolled.sequence == PendingValues.STICKY) {
+                dispatchValue(nextSlot(value, 0));
+            } else {
+                setValue(value);
+            }
+        }
+        return count;
     }
 
     /**
@@ -174,8 +428,10 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
     @Override
     public void removeObserver(@NonNull ObserverWrapper<T> observerWrapper) {
         checkThread(() -> {
-            mObserverWrappers.remove(observerWrapper);
-            mMutableLiveData.removeObserver(observerWrapper.observer);
+            Subscription<T> subscription = mObserverSubscriptions.get(observerWrapper);
+            if (subscription != null) {
+                subscription.remove();
+            }
         });
     }
 
@@ -187,14 +443,10 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
     @Override
     public void removeObservers(@NonNull LifecycleOwner owner) {
         checkThread(() -> {
-            Iterator<ObserverWrapper<T>> iterator = mObserverWrappers.iterator();
-            while (iterator.hasNext()) {
-                ObserverWrapper<T> next = iterator.next();
-                if (next.owner == owner) {
-                    iterator.remove();
-                }
+            OwnerSubscriptions<T> group = mOwnerSubscriptions.get(owner);
+            if (group != null) {
+                group.removeAll();
             }
-            mMutableLiveData.removeObservers(owner);
         });
     }
 
@@ -234,55 +486,48 @@ public class ActiveLiveDataWrapper<T> implements LiveDataWrapper<T> {
         checkThread(() -> insertObserver(owner, observerWrapper));
     }
 
+    /**
+     * 按优先级加入订阅，不影响已有的观察者
+     * 和生命周期绑定的观察者在生命周期至少为 STARTED 时才激活，和 LiveData 一致
+     *
+     * @param owner           生命周期拥有者，为空表示一直监听
+     * @param observerWrapper 观察者包装类
+     */
     private void insertObserver(LifecycleOwner owner, @NonNull ObserverWrapper<T> observerWrapper) {
-        observerWrapper.sequence = observerWrapper.sticky ? mStickySequence : mSequence++;
-        observerWrapper.owner = owner;
-        Observer<ValueWrapper<T>> observer = filterObserver(observerWrapper);
-        int i = mObserverWrappers.size();
-        for (; i > 0; i--) {
-            ObserverWrapper<T> previous = mObserverWrappers.get(i - 1);
-            if (observerWrapper.priority > previous.priority) {
-                previous.sequence = mSequence++;
-                mMutableLiveData.removeObserver(previous.observer);
-            } else {
-                break;
+        Subscription<T> existing = mObserverSubscriptions.get(observerWrapper);
+        if (existing != null && existing.isAttached()) {
+            // 和 LiveData 一致，同一个观察者不能绑定到不同的生命周期
+            if (existing.owner != owner) {
+                throw new IllegalArgumentException("Cannot add the same observer with different lifecycles");
             }
+            return;
         }
-        mObserverWrappers.add(i, observerWrapper);
-        for (; i < mObserverWrappers.size(); i++) {
-            ObserverWrapper<T> next = mObserverWrappers.get(i);
-            if (next.owner == null) {
-                mMutableLiveData.observeForever(next.observer);
-            } else {
-                mMutableLiveData.observe(next.owner, next.observer);
-            }
+        if (owner != null && owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
         }
-    }
-
-    /**
-     * 从包装类中过滤出原始观察者
-     *
-     * @param observerWrapper 包装类
-     * @return 原始观察者
-     */
-    @NonNull
-    private Observer<ValueWrapper<T>> filterObserver(@NonNull final ObserverWrapper<T> observerWrapper) {
-        if (observerWrapper.observer != null) {
-            return observerWrapper.observer;
+        int sequence = observerWrapper.sticky ? mStickySequence : mSequence++;
+        observerWrapper.owner = owner;
+        Subscription<T> subscription = new Subscription<>(this, observerWrapper, owner, sequence);
+        mObserverSubscriptions.put(observerWrapper, subscription);
+        mSubscribers.add(subscription);
+        if (mSubscribers.size() == 1) {
+            interestChanged(true);
+        }
+        if (owner == null) {
+            activeStateChanged(subscription, true);
+            return;
+        }
+        OwnerSubscriptions<T> group = mOwnerSubscriptions.get(owner);
+        if (group == null) {
+            group = new OwnerSubscriptions<>(this, owner);
+            mOwnerSubscriptions.put(owner, group);
+            group.add(subscription);
+            // 添加时会按当前生命周期状态回调
+            owner.getLifecycle().addObserver(group);
+        } else {
+            group.add(subscription);
+            activeStateChanged(subscription, group.isActive());
         }
-        return observerWrapper.observer = valueWrapper -> {
-            // 产生的事件序号要大于观察者序号才被通知事件变化
-            if (valueWrapper != null && valueWrapper.sequence > observerWrapper.sequence) {
-                if (observerWrapper.uiThread) {
-                    observerWrapper.onChanged(valueWrapper.value);
-                } else {
-                    BusFactory
-                            .ready()
-                            .getExecutorService()
-                            .execute(() -> observerWrapper.onChanged(valueWrapper.value));
-                }
-            }
-        };
     }
 
     /**
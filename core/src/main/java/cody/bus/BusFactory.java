@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：BusFactory.java  模块：ElegantBus.core.main  项目：ElegantBus
- * 当前修改时间：2023年05月27日 12:23:16
- * 上次修改时间：2023年05月27日 12:01:20
+ * 当前修改时间：2026年10月17日 22:44:20
+ * 上次修改时间：2026年10月17日 22:39:06
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.core.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -17,10 +17,13 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import androidx.annotation.NonNull;
 
@@ -31,10 +34,18 @@ import androidx.annotation.NonNull;
 public class BusFactory {
     private final Object mLock = new Object();
     private volatile Handler mMainHandler;
-    private final ExecutorService mExecutorService;
-    private final ExecutorService mSingleExecutorService;
+    private final MainDispatcher mMainDispatcher;
+    // 后台观察者线程池，有界队列，线程数和 CPU 核数相关
+    private volatile WorkerExecutor mExecutorService;
+    // 跨进程编解码线程，保证事件顺序
+    private volatile ThreadPoolExecutor mSingleExecutorService;
+    // 跨进程调用线程，没有设置单独的通道时为 null，直接在编解码线程中调用
+    private volatile ThreadPoolExecutor mIoExecutorService;
+    // 跨进程收到事件的解码线程，按事件分配，不同事件并行解码，第一次收到跨进程事件时创建
+    private volatile ThreadPoolExecutor[] mDecodeLanes;
+    private volatile ExecutorConfig mExecutorConfig;
     //不同group的bus集
-    private final Map<String, EventGroupHolder> mGroupBus;
+    private final ConcurrentHashMap<String, EventGroupHolder> mGroupBus;
     private MultiProcess mDelegate;
 
     public static void setDelegate(final MultiProcess MultiProcess) {
@@ -45,6 +56,21 @@ public class BusFactory {
         return ready().mDelegate;
     }
 
+    /**
+     * 设置线程池配置，需要在发送事件之前设置，一般在 Application 的 onCreate 中调用
+     * 后台观察者线程池会更换，旧的线程池执行完已提交的任务后关闭；
+     * 跨进程相关的线程不更换，只更新配置，保证跨进程事件的顺序，解码线程数创建之后不能再修改
+     *
+     * @param config 线程池配置
+     */
+    public static void setExecutorConfig(@NonNull ExecutorConfig config) {
+        ready().applyExecutorConfig(config);
+    }
+
+    public static ExecutorConfig getExecutorConfig() {
+        return ready().mExecutorConfig;
+    }
+
     private static class InstanceHolder {
         private static final BusFactory INSTANCE = new BusFactory();
     }
@@ -54,39 +80,238 @@ public class BusFactory {
     }
 
     private BusFactory() {
-        mGroupBus = new HashMap<>();
-        mExecutorService = Executors.newCachedThreadPool();
-        mSingleExecutorService = Executors.newSingleThreadExecutor();
+        mGroupBus = new ConcurrentHashMap<>();
+        mMainDispatcher = new MainDispatcher();
+        applyExecutorConfig(ExecutorConfig.create());
+    }
+
+    private void applyExecutorConfig(@NonNull ExecutorConfig config) {
+        WorkerExecutor oldExecutor, executor;
+        synchronized (mLock) {
+            oldExecutor = mExecutorService;
+            executor = new WorkerExecutor(config);
+            mExecutorService = executor;
+            mExecutorConfig = config;
+            // 编解码和跨进程调用不能丢，队列不限制长度
+            // 已经创建的线程中可能还有等待发送的事件，不更换线程池，关闭后再提交的事件会被拒绝，也会打乱顺序
+            if (mSingleExecutorService == null) {
+                mSingleExecutorService = newSingleThreadExecutor(config, "ElegantBus-ipc-");
+            } else {
+                mSingleExecutorService.setKeepAliveTime(config.getKeepAliveSeconds(), TimeUnit.SECONDS);
+            }
+            applyIoLane(config);
+            ThreadPoolExecutor[] decodeLanes = mDecodeLanes;
+            if (decodeLanes != null) {
+                if (decodeLanes.length != config.getDecodeLanes()) {
+                    ElegantLog.w("Decode lanes are already created, keep " + decodeLanes.length + " lanes");
+                }
+                for (ThreadPoolExecutor lane : decodeLanes) {
+                    lane.setKeepAliveTime(config.getKeepAliveSeconds(), TimeUnit.SECONDS);
+                }
+            }
+        }
+        // 旧的后台观察者线程池关闭后，再提交的任务由拒绝策略转交到新的线程池
+        if (oldExecutor != null) {
+            oldExecutor.shutdown();
+            oldExecutor.mRejectHandler.moveOverflow(executor);
+        }
+    }
+
+    /**
+     * 更新跨进程调用线程，只在持有 mLock 时调用
+     * 关闭单独的通道时，在编解码线程中等已经提交的调用执行完再切换为直接调用，跨进程调用只在编解码线程中提交，顺序不变
+     *
+     * @param config 线程池配置
+     */
+    private void applyIoLane(@NonNull ExecutorConfig config) {
+        final ThreadPoolExecutor ioExecutor = mIoExecutorService;
+        if (config.isSeparateIoLane()) {
+            if (ioExecutor == null) {
+                mIoExecutorService = newSingleThreadExecutor(config, "ElegantBus-io-");
+            } else {
+                ioExecutor.setKeepAliveTime(config.getKeepAliveSeconds(), TimeUnit.SECONDS);
+            }
+        } else if (ioExecutor != null) {
+            mSingleExecutorService.execute(() -> {
+                synchronized (mLock) {
+                    // 切换之前又打开了单独的通道
+                    if (mIoExecutorService != ioExecutor || mExecutorConfig.isSeparateIoLane()) {
+                        return;
+                    }
+                    mIoExecutorService = null;
+                }
+                ioExecutor.shutdown();
+                try {
+                    while (!ioExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                        ElegantLog.w("Waiting for io lane to finish, queue = " + ioExecutor.getQueue().size());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
     }
 
+    /**
+     * @return 解码线程，第一次使用时按当前配置创建，之后数量不变，同一个事件总在同一个线程中解码
+     */
     @NonNull
-    public <T> LiveDataWrapper<T> create(EventWrapper eventWrapper) {
-        EventGroupHolder eventGroupHolder = null;
-        if (mGroupBus.containsKey(eventWrapper.group)) {
-            eventGroupHolder = mGroupBus.get(eventWrapper.group);
+    private ThreadPoolExecutor[] decodeLanes() {
+        ThreadPoolExecutor[] lanes = mDecodeLanes;
+        if (lanes == null) {
+            synchronized (mLock) {
+                lanes = mDecodeLanes;
+                if (lanes == null) {
+                    ExecutorConfig config = mExecutorConfig;
+                    lanes = new ThreadPoolExecutor[config.getDecodeLanes()];
+                    for (int i = 0; i < lanes.length; i++) {
+                        lanes[i] = newSingleThreadExecutor(config, "ElegantBus-decode" + i + "-");
+                    }
+                    mDecodeLanes = lanes;
+                }
+            }
         }
-        if (eventGroupHolder == null) {
-            synchronized (mGroupBus) {
-                if (mGroupBus.containsKey(eventWrapper.group)) {
-                    eventGroupHolder = mGroupBus.get(eventWrapper.group);
-                } else {
-                    eventGroupHolder = new EventGroupHolder(eventWrapper);
-                    mGroupBus.put(eventWrapper.group, eventGroupHolder);
+        return lanes;
+    }
+
+    private static ThreadPoolExecutor newSingleThreadExecutor(@NonNull ExecutorConfig config, String name) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                config.getKeepAliveSeconds(),
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamedThreadFactory(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 获取或创建事件总线
+     * 事件标识中会保存创建好的总线，已经存在的总线只需要一次读取
+     *
+     * @param eventKey 事件标识
+     * @param <T>      事件类型
+     * @return 事件总线
+     */
+    @NonNull
+    public <T> LiveDataWrapper<T> create(@NonNull EventKey<T> eventKey) {
+        LiveDataWrapper<T> bus = eventKey.bus;
+        if (bus == null) {
+            EventGroupHolder eventGroupHolder = mGroupBus.get(eventKey.group);
+            if (eventGroupHolder == null) {
+                synchronized (mGroupBus) {
+                    eventGroupHolder = mGroupBus.get(eventKey.group);
+                    if (eventGroupHolder == null) {
+                        eventGroupHolder = new EventGroupHolder();
+                        mGroupBus.put(eventKey.group, eventGroupHolder);
+                    }
                 }
             }
+            bus = eventKey.bus = eventGroupHolder.getBus(eventKey);
+            if (eventKey.raw.get() != null) {
+                // 跨进程收到过值，马上解码，创建之后获取值时已经是收到的最新值
+                ElegantUtil.applyRaw(eventKey, bus);
+            }
         }
-        assert eventGroupHolder != null;
-        return eventGroupHolder.getBus(eventWrapper);
+        return bus;
+    }
+
+    /**
+     * 跨进程收到事件时根据事件包装类获取事件总线
+     *
+     * @param eventWrapper 事件包装类
+     * @param <T>          事件类型
+     * @return 事件总线
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public <T> LiveDataWrapper<T> create(@NonNull EventWrapper eventWrapper) {
+        return create((EventKey<T>) eventWrapper.eventKey());
     }
 
+    /**
+     * @return 后台观察者线程池
+     */
     public ExecutorService getExecutorService() {
         return mExecutorService;
     }
 
+    /**
+     * @return 跨进程编解码线程，单线程保证事件顺序
+     */
     public ExecutorService getSingleExecutorService() {
         return mSingleExecutorService;
     }
 
+    /**
+     * 执行跨进程调用，在编解码线程中调用
+     * 设置了单独的跨进程调用通道时切换到跨进程调用线程，编码下一个事件时不需要等待当前调用返回，
+     * 否则直接在当前线程执行
+     *
+     * @param runnable 跨进程调用
+     */
+    public void executeIo(@NonNull Runnable runnable) {
+        ThreadPoolExecutor ioExecutor = mIoExecutorService;
+        if (ioExecutor != null) {
+            ioExecutor.execute(runnable);
+        } else {
+            runnable.run();
+        }
+    }
+
+    /**
+     * 在事件的解码线程中执行，同一个分组和事件名总在同一个线程中执行，保证顺序
+     *
+     * @param eventWrapper 跨进程收到的事件
+     * @param runnable     解码任务
+     */
+    public void executeDecode(@NonNull EventWrapper eventWrapper, @NonNull Runnable runnable) {
+        executeDecode(eventWrapper.group, eventWrapper.event, runnable);
+    }
+
+    void executeDecode(String group, String event, @NonNull Runnable runnable) {
+        ThreadPoolExecutor[] lanes = decodeLanes();
+        int hash = 31 * (group == null ? 0 : group.hashCode()) + (event == null ? 0 : event.hashCode());
+        lanes[(hash & Integer.MAX_VALUE) % lanes.length].execute(runnable);
+    }
+
+    /**
+     * @return 后台观察者线程池当前线程数
+     */
+    public int getWorkerThreadCount() {
+        return mExecutorService.getPoolSize();
+    }
+
+    /**
+     * @return 后台观察者线程池中等待执行的任务数
+     */
+    public int getWorkerQueueDepth() {
+        return mExecutorService.getQueue().size();
+    }
+
+    /**
+     * @return 跨进程编解码线程中等待执行的任务数
+     */
+    public int getIpcQueueDepth() {
+        return mSingleExecutorService.getQueue().size();
+    }
+
+    /**
+     * @return 跨进程调用线程中等待执行的任务数，没有单独的通道时为 0
+     */
+    public int getIoQueueDepth() {
+        ThreadPoolExecutor ioExecutor = mIoExecutorService;
+        return ioExecutor == null ? 0 : ioExecutor.getQueue().size();
+    }
+
+    /**
+     * 其他线程发送的事件由主线程分发器批量分发，可以设置每次分发的预算和查看队列状态
+     *
+     * @return 主线程分发器
+     */
+    public MainDispatcher getMainDispatcher() {
+        return mMainDispatcher;
+    }
+
     public Handler getMainHandler() {
         if (mMainHandler == null) {
             synchronized (mLock) {
@@ -101,30 +326,23 @@ public class BusFactory {
     /**
      * 每个group一个总线集
      * 每个group是独立的，不同group之间事件不互通
+     * 读取不加锁，只有创建新的事件总线时才在当前分组上加锁，保证同一个事件只创建一次
      */
     private final static class EventGroupHolder {
-        final Map<String, LiveDataWrapper<?>> eventBus = new HashMap<>();
-
-        EventGroupHolder(EventWrapper eventWrapper) {
-            if (!eventBus.containsKey(eventWrapper.event)) {
-                eventBus.put(eventWrapper.event, new ActiveLiveDataWrapper<>(eventWrapper));
-            }
-        }
+        final ConcurrentHashMap<String, LiveDataWrapper<?>> eventBus = new ConcurrentHashMap<>();
 
         @SuppressWarnings("unchecked")
-        <T> LiveDataWrapper<T> getBus(EventWrapper eventWrapper) {
-            LiveDataWrapper<T> bus;
+        <T> LiveDataWrapper<T> getBus(EventKey<T> eventKey) {
             //  一个分组不会有相同的事件名，即使类型不一样也不行，定义事件时就会报错
             // 如果用户不使用事件定义方式，很难保证事件一致
-            if (eventBus.containsKey(eventWrapper.event)) {
-                bus = (LiveDataWrapper<T>) eventBus.get(eventWrapper.event);
-            } else {
+            LiveDataWrapper<T> bus = (LiveDataWrapper<T>) eventBus.get(eventKey.event);
+            if (bus == null) {
+                // computeIfAbsent 在 API 24 以下不可用，这里使用分组锁保证只创建一次
                 synchronized (eventBus) {
-                    if (eventBus.containsKey(eventWrapper.event)) {
-                        bus = (LiveDataWrapper<T>) eventBus.get(eventWrapper.event);
-                    } else {
-                        bus = new ActiveLiveDataWrapper<>(eventWrapper);
-                        eventBus.put(eventWrapper.event, bus);
+                    bus = (LiveDataWrapper<T>) eventBus.get(eventKey.event);
+                    if (bus == null) {
+                        bus = new ActiveLiveDataWrapper<>(eventKey);
+                        eventBus.put(eventKey.event, bus);
                     }
                 }
             }
@@ -132,6 +350,55 @@ public class BusFactory {
         }
     }
 
+    /**
+     * 后台观察者线程池，有界队列，队列满了之后由拒绝策略处理
+     * 每执行完一个任务，把溢出的任务放回等待队列
+     */
+    private final static class WorkerExecutor extends ThreadPoolExecutor {
+        final ExecutorConfig.RejectHandler mRejectHandler;
+
+        WorkerExecutor(@NonNull ExecutorConfig config) {
+            this(config, config.rejectedExecutionHandler());
+        }
+
+        private WorkerExecutor(@NonNull ExecutorConfig config, @NonNull ExecutorConfig.RejectHandler rejectHandler) {
+            super(config.getWorkerThreads(),
+                    config.getWorkerThreads(),
+                    config.getKeepAliveSeconds(),
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(config.getQueueCapacity()),
+                    new NamedThreadFactory("ElegantBus-worker-"),
+                    rejectHandler);
+            mRejectHandler = rejectHandler;
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        protected void afterExecute(Runnable runnable, Throwable throwable) {
+            super.afterExecute(runnable, throwable);
+            mRejectHandler.drainOverflow(this);
+        }
+    }
+
+    /**
+     * 线程命名，方便排查问题
+     */
+    private final static class NamedThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger(1);
+        private final String mPrefix;
+
+        NamedThreadFactory(final String prefix) {
+            mPrefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, mPrefix + mCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     private static Handler createAsync(@NonNull Looper looper) {
         if (Build.VERSION.SDK_INT >= 28) {
             return Handler.createAsync(looper);
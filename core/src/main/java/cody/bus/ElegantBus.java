@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ElegantBus.java  模块：ElegantBus.core.main  项目：ElegantBus
- * 当前修改时间：2023年06月01日 17:08:51
- * 上次修改时间：2023年06月01日 17:08:38
+ * 当前修改时间：2026年10月17日 21:52:33
+ * 上次修改时间：2026年10月17日 21:23:40
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.core.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -29,6 +29,18 @@ public class ElegantBus {
         ElegantLog.setDebug(debug);
     }
 
+    /**
+     * 注册事件值的跨进程编解码器，代替默认的 JSON 编码
+     * 发送进程和接收进程都需要注册，一般在 Application 创建时注册
+     *
+     * @param type  事件类型
+     * @param codec 编解码器
+     * @param <T>   事件类型
+     */
+    public static <T> void registerCodec(@NonNull Class<T> type, @NonNull EventCodec<T> codec) {
+        EventCodecs.register(type, codec);
+    }
+
     /**
      * 获取默认域的事件包装类
      *
@@ -86,8 +98,20 @@ public class ElegantBus {
      */
     public static <T> LiveDataWrapper<T> getDefault(String group, String event, @NonNull Class<T> type,
             boolean multiProcess) {
-        return BusFactory.ready()
-                .create(new EventWrapper(ElegantUtil.getProcessName(), group, event, type.getName(), multiProcess));
+        return getDefault(EventKey.obtain(group, event, type, multiProcess));
+    }
+
+    /**
+     * 根据事件标识获取事件包装类
+     *
+     * @param eventKey 事件标识，可以保存为静态变量重复使用
+     * @param <T>      事件类型
+     * @return 事件包装类
+     * <p>
+     * 注解自动生成的管理类使用此方法
+     */
+    public static <T> LiveDataWrapper<T> getDefault(@NonNull EventKey<T> eventKey) {
+        return BusFactory.ready().create(eventKey);
     }
 
     public static <T> LiveDataWrapper<T> getStub() {
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ElegantUtil.java  模块：ElegantBus.core.main  项目：ElegantBus
- * 当前修改时间：2023年06月05日 20:59:58
- * 上次修改时间：2023年06月05日 20:43:19
+ * 当前修改时间：2026年10月17日 22:59:35
+ * 上次修改时间：2026年10月17日 22:44:20
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.core.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -18,7 +18,7 @@ import android.content.pm.PackageManager;
 import android.text.TextUtils;
 import android.util.Log;
 
-import com.alibaba.fastjson.JSON;
+import androidx.annotation.NonNull;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -116,32 +116,81 @@ class ElegantUtil {
 
     /**
      * 发送数据前进行编码
+     * 返回新的事件包装类，跨进程调用可能在其他线程执行，不能修改事件总线共用的包装类
      *
      * @param eventWrapper 事件包装类
      * @param value        值
      * @param <T>          类型
-     * @return 事件包装类
+     * @return 带有编码后数据的事件包装类
      */
     static <T> EventWrapper encode(EventWrapper eventWrapper, T value) {
-        eventWrapper.json = JSON.toJSONString(value);
-        return eventWrapper;
+        EventWrapper result = eventWrapper.copy(EventCodecs.encode(value));
+        result.seq = eventWrapper.eventKey().nextSequence();
+        return result;
     }
 
     /**
-     * 接收数据后进行解码
+     * 跨进程收到事件，在事件的解码线程中按发送顺序解码，不同事件并行解码
+     *
+     * @param eventWrapper 事件包装类
+     * @param what         消息
+     */
+    static void receive(final EventWrapper eventWrapper, final int what) {
+        BusFactory.ready().executeDecode(eventWrapper, () -> ReorderBuffer.offer(eventWrapper, what));
+    }
+
+    /**
+     * 解码之前的准备工作，比如查询类型名、从共享内存读出数据，在事件的解码线程中执行
+     */
+    interface Preparer {
+        /**
+         * @param eventWrapper 收到的事件
+         * @return 需要解码的事件
+         */
+        @NonNull
+        EventWrapper prepare(@NonNull EventWrapper eventWrapper);
+    }
+
+    /**
+     * 跨进程收到事件，在事件的解码线程中先准备再按发送顺序解码，准备工作不占用其他线程
+     *
+     * @param eventWrapper 事件包装类
+     * @param what         消息
+     * @param preparer     解码之前的准备工作
+     */
+    static void receive(final EventWrapper eventWrapper, final int what, final Preparer preparer) {
+        BusFactory.ready().executeDecode(eventWrapper,
+                () -> ReorderBuffer.offer(preparer.prepare(eventWrapper), what));
+    }
+
+    /**
+     * 接收数据后进行解码，只在事件的解码线程中调用
      *
      * @param eventWrapper 事件包装类
      * @param what         消息
      */
     static void decode(final EventWrapper eventWrapper, final int what) {
-        Object value = null;
+        if (eventWrapper.type == null) {
+            ElegantLog.e("Unknown event type id " + eventWrapper.typeId + ", Event = " + eventWrapper);
+            return;
+        }
+        EventKey<?> eventKey = eventWrapper.eventKey();
+        // 和创建总线时解码保留的值互斥，保证保留的旧值不会在之后收到的值后面发送
+        synchronized (eventKey.raw) {
+            if (eventKey.bus == null) {
+                // 当前进程还没有这个事件总线，只保留编码后的最新值，不解码也不创建总线
+                eventKey.raw.set(what == MultiProcess.MSG_ON_RESET_STICKY ? null : eventWrapper.data);
+                return;
+            }
+            dispatch(eventWrapper, what);
+        }
+    }
+
+    private static void dispatch(final EventWrapper eventWrapper, final int what) {
+        Object value;
         switch (what) {
             case MultiProcess.MSG_ON_POST:
-                try {
-                    value = JSON.parseObject(eventWrapper.json, Class.forName(eventWrapper.type));
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
-                }
+                value = decodeValue(eventWrapper);
                 if (value == null) {
                     ElegantLog.e(" MSG_ON_POST value is null" + eventWrapper);
                     return;
@@ -149,11 +198,7 @@ class ElegantUtil {
                 BusFactory.ready().create(eventWrapper).postToCurrentProcess(value);
                 break;
             case MultiProcess.MSG_ON_POST_STICKY:
-                try {
-                    value = JSON.parseObject(eventWrapper.json, Class.forName(eventWrapper.type));
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
-                }
+                value = decodeValue(eventWrapper);
                 if (value == null) {
                     ElegantLog.e(" MSG_ON_POST value is null" + eventWrapper);
                     return;
@@ -165,4 +210,39 @@ class ElegantUtil {
                 break;
         }
     }
+
+    /**
+     * 创建事件总线时在当前线程中解码保留的值，作为粘性事件发送到当前进程，创建之后马上获取值也能拿到
+     *
+     * @param eventKey 事件标识
+     * @param bus      刚创建的事件总线
+     * @param <T>      事件类型
+     */
+    @SuppressWarnings("unchecked")
+    static <T> void applyRaw(final EventKey<T> eventKey, final LiveDataWrapper<T> bus) {
+        synchronized (eventKey.raw) {
+            byte[] data = eventKey.raw.getAndSet(null);
+            if (data == null) {
+                return;
+            }
+            Object value = decodeValue(data, eventKey.type, eventKey.group, eventKey.key);
+            if (value != null) {
+                bus.postStickyToCurrentProcess((T) value);
+            }
+        }
+    }
+
+    private static Object decodeValue(final EventWrapper eventWrapper) {
+        return decodeValue(eventWrapper.data, eventWrapper.type, eventWrapper.group, eventWrapper);
+    }
+
+    private static Object decodeValue(final byte[] data, final String type, final String group, final Object event) {
+        try {
+            return EventCodecs.decode(data, type, group);
+        } catch (RuntimeException e) {
+            // 数据格式不一致，比如两个应用的事件定义版本不同，丢弃这个事件
+            ElegantLog.e("Decode failed : " + e + ", Event = " + event);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ * ************************************************************
+ * 文件：EventCodec.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 21:52:33
+ * 上次修改时间：2026年10月17日 21:52:33
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 事件值跨进程传递时的编解码器
+ * <p>
+ * 通过 {@link ElegantBus#registerCodec(Class, EventCodec)} 注册，发送进程和接收进程需要注册同样的编解码器，
+ * 没有注册的类型使用 JSON 编码
+ *
+ * @param <T> 事件类型
+ */
+public interface EventCodec<T> {
+    /**
+     * 写入事件值
+     *
+     * @param out   输出
+     * @param value 事件值
+     */
+    void write(@NonNull EventOutput out, @NonNull T value);
+
+    /**
+     * 读取事件值，读取顺序和写入顺序一致
+     *
+     * @param in 输入
+     * @return 事件值
+     */
+    T read(@NonNull EventInput in);
+}
@@ -0,0 +1,185 @@
+/*
+ * ************************************************************
+ * 文件：EventCodecs.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:59:35
+ * 上次修改时间：2026年10月17日 21:57:45
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.alibaba.fastjson.JSON;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 事件值编解码
+ * <p>
+ * 第一个字节表示编码方式：基本类型、字符串和字节数组直接写二进制，不需要根据类型名查找类；
+ * 注册了 {@link EventCodec} 的类型使用注册的编解码器；其他类型使用 JSON 编码，保持兼容。
+ * 注解生成的编解码器在按分组命名的索引类中，接收进程没有用过生成的事件总线类时，解码时按分组名加载索引类注册
+ */
+final class EventCodecs {
+    static final byte FORMAT_JSON = 0;
+    static final byte FORMAT_CODEC = 1;
+    private static final byte FORMAT_BOOLEAN = 2;
+    private static final byte FORMAT_BYTE = 3;
+    private static final byte FORMAT_SHORT = 4;
+    private static final byte FORMAT_CHAR = 5;
+    private static final byte FORMAT_INT = 6;
+    private static final byte FORMAT_LONG = 7;
+    private static final byte FORMAT_FLOAT = 8;
+    private static final byte FORMAT_DOUBLE = 9;
+    private static final byte FORMAT_STRING = 10;
+    private static final byte FORMAT_BYTES = 11;
+    // 注册的编解码器，类型 -> 编解码器
+    private static final ConcurrentHashMap<Class<?>, EventCodec<?>> sCodecs = new ConcurrentHashMap<>();
+    // 注册的编解码器，类型名 -> 编解码器，解码时不需要根据类型名加载类
+    private static final ConcurrentHashMap<String, EventCodec<?>> sCodecNames = new ConcurrentHashMap<>();
+    // 注解生成的编解码器索引类，包名和后缀和注解处理器一致
+    private static final String INDEX_PACKAGE = "cody.bus.codec.";
+    private static final String INDEX_SUFFIX = "Codecs";
+    private static final String BUS = "Bus";
+    // 没有生成编解码器索引类的分组，不再查找
+    private static final ConcurrentHashMap<String, Boolean> sNoIndexGroups = new ConcurrentHashMap<>();
+
+    private EventCodecs() {
+    }
+
+    static <T> void register(@NonNull Class<T> type, @NonNull EventCodec<T> codec) {
+        EventCodec<?> old = sCodecs.put(type, codec);
+        sCodecNames.put(type.getName(), codec);
+        if (old != null && old != codec) {
+            // 不同分组使用同一个类型时，每个分组生成的事件总线类都会注册一次
+            ElegantLog.d("EventCodec of " + type.getName() + " is replaced by " + codec);
+        }
+    }
+
+    /**
+     * 编码事件值
+     *
+     * @param value 事件值
+     * @return 编码后的数据
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    static byte[] encode(@Nullable Object value) {
+        if (value != null) {
+            EventCodec<Object> codec = (EventCodec<Object>) sCodecs.get(value.getClass());
+            if (codec != null) {
+                EventOutput out = new EventOutput(64);
+                out.writeByte(FORMAT_CODEC);
+                codec.write(out, value);
+                return out.toByteArray();
+            }
+        }
+        if (value instanceof String) {
+            String string = (String) value;
+            return new EventOutput(string.length() + 6).writeByte(FORMAT_STRING).writeString(string).toByteArray();
+        } else if (value instanceof Integer) {
+            return new EventOutput(6).writeByte(FORMAT_INT).writeInt((Integer) value).toByteArray();
+        } else if (value instanceof Long) {
+            return new EventOutput(11).writeByte(FORMAT_LONG).writeLong((Long) value).toByteArray();
+        } else if (value instanceof Boolean) {
+            return new EventOutput(2).writeByte(FORMAT_BOOLEAN).writeBoolean((Boolean) value).toByteArray();
+        } else if (value instanceof Double) {
+            return new EventOutput(9).writeByte(FORMAT_DOUBLE).writeDouble((Double) value).toByteArray();
+        } else if (value instanceof Float) {
+            return new EventOutput(5).writeByte(FORMAT_FLOAT).writeFloat((Float) value).toByteArray();
+        } else if (value instanceof Byte) {
+            return new EventOutput(2).writeByte(FORMAT_BYTE).writeByte((Byte) value).toByteArray();
+        } else if (value instanceof Short) {
+            return new EventOutput(4).writeByte(FORMAT_SHORT).writeShort((Short) value).toByteArray();
+        } else if (value instanceof Character) {
+            return new EventOutput(4).writeByte(FORMAT_CHAR).writeChar((Character) value).toByteArray();
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            return new EventOutput(bytes.length + 6).writeByte(FORMAT_BYTES).writeBytes(bytes).toByteArray();
+        }
+        byte[] json = JSON.toJSONBytes(value);
+        EventOutput out = new EventOutput(json.length + 1);
+        out.writeByte(FORMAT_JSON);
+        out.writeRaw(json);
+        return out.toByteArray();
+    }
+
+    /**
+     * 加载分组的编解码器索引类，类加载时注册这个分组生成的编解码器
+     * 类名和注解处理器生成的事件总线类名一致，分组名以 Bus 结尾时不再添加
+     *
+     * @param group 分组名
+     */
+    private static void loadIndex(@Nullable String group) {
+        if (group == null || group.isEmpty() || sNoIndexGroups.containsKey(group)) {
+            return;
+        }
+        String busName = group.toLowerCase().endsWith(BUS.toLowerCase()) ? group : group + BUS;
+        try {
+            Class.forName(INDEX_PACKAGE + busName + INDEX_SUFFIX, true, EventCodecs.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            sNoIndexGroups.put(group, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 解码事件值
+     *
+     * @param data  编码后的数据
+     * @param type  事件类型名，只有注册的编解码器和 JSON 需要
+     * @param group 分组名，没有注册编解码器时按分组加载生成的编解码器
+     * @return 事件值，无法解码时返回 null
+     */
+    @Nullable
+    static Object decode(@Nullable byte[] data, @NonNull String type, @Nullable String group) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        EventInput in = new EventInput(data, 1);
+        switch (data[0]) {
+            case FORMAT_STRING:
+                return in.readString();
+            case FORMAT_INT:
+                return in.readInt();
+            case FORMAT_LONG:
+                return in.readLong();
+            case FORMAT_BOOLEAN:
+                return in.readBoolean();
+            case FORMAT_DOUBLE:
+                return in.readDouble();
+            case FORMAT_FLOAT:
+                return in.readFloat();
+            case FORMAT_BYTE:
+                return in.readByte();
+            case FORMAT_SHORT:
+                return in.readShort();
+            case FORMAT_CHAR:
+                return in.readChar();
+            case FORMAT_BYTES:
+                return in.readBytes();
+            case FORMAT_CODEC:
+                EventCodec<?> codec = sCodecNames.get(type);
+                if (codec == null) {
+                    loadIndex(group);
+                    codec = sCodecNames.get(type);
+                }
+                if (codec == null) {
+                    ElegantLog.e("EventCodec of " + type + " is not registered in " + ElegantUtil.getProcessName());
+                    return null;
+                }
+                return codec.read(in);
+            case FORMAT_JSON:
+                Class<?> clazz = TypeResolver.classOf(type);
+                return clazz == null ? null : JSON.parseObject(in.readRemaining(), clazz);
+            default:
+                ElegantLog.e("Unknown event data format " + data[0] + " of " + type);
+                return null;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * ************************************************************
+ * 文件：EventInput.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 21:52:33
+ * 上次修改时间：2026年10月17日 21:52:33
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * 事件值二进制解码输入，和 {@link EventOutput} 对应
+ */
+@SuppressWarnings("unused")
+public final class EventInput {
+    private final byte[] mBuffer;
+    private int mPosition;
+
+    EventInput(@NonNull byte[] buffer, int position) {
+        mBuffer = buffer;
+        mPosition = position;
+    }
+
+    private void require(int size) {
+        if (size < 0 || mPosition + size > mBuffer.length) {
+            throw new IllegalStateException("Event data is truncated at " + mPosition + ", need " + size);
+        }
+    }
+
+    public byte readByte() {
+        require(1);
+        return mBuffer[mPosition++];
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public short readShort() {
+        return (short) readInt();
+    }
+
+    public char readChar() {
+        return (char) readVarInt();
+    }
+
+    public int readInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public float readFloat() {
+        require(4);
+        int bits = (mBuffer[mPosition++] & 0xFF)
+                | (mBuffer[mPosition++] & 0xFF) << 8
+                | (mBuffer[mPosition++] & 0xFF) << 16
+                | (mBuffer[mPosition++] & 0xFF) << 24;
+        return Float.intBitsToFloat(bits);
+    }
+
+    public double readDouble() {
+        require(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits |= (mBuffer[mPosition++] & 0xFFL) << (i << 3);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    @Nullable
+    public String readString() {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(mBuffer, mPosition, length, EventOutput.UTF_8);
+        mPosition += length;
+        return value;
+    }
+
+    @Nullable
+    public byte[] readBytes() {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        byte[] value = Arrays.copyOfRange(mBuffer, mPosition, mPosition + length);
+        mPosition += length;
+        return value;
+    }
+
+    int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint at " + mPosition);
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint at " + mPosition);
+    }
+
+    /**
+     * @return 剩下没有读取的原始数据
+     */
+    @NonNull
+    byte[] readRemaining() {
+        byte[] value = Arrays.copyOfRange(mBuffer, mPosition, mBuffer.length);
+        mPosition = mBuffer.length;
+        return value;
+    }
+}
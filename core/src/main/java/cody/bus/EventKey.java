@@ -0,0 +1,236 @@
+/*
+ * ************************************************************
+ * 文件：EventKey.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:39:06
+ * 上次修改时间：2026年10月17日 22:29:15
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 事件唯一标识，同一个分组中同一个事件名只有一个实例
+ * <p>
+ * 创建时就计算好 key 和 hash，注解生成的 *Bus 类中以静态变量保存，
+ * 获取事件总线时不需要再次创建 EventWrapper 和拼接字符串
+ *
+ * @param <T> 事件类型
+ */
+@SuppressWarnings("unused")
+public final class EventKey<T> {
+    // 已经创建的事件标识，分组 -> 事件名 -> 事件标识
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, EventKey<?>>> sEventKeys =
+            new ConcurrentHashMap<>();
+    // 发送事件到某个分组
+    final String group;
+    // 发送的事件名
+    final String event;
+    // 发送的事件类型
+    final String type;
+    // 是否支持多进程，跨进程收到事件时创建的标识在当前进程定义事件时更新
+    volatile boolean multiProcess;
+    // 是否只保留最新值，等待分发或者等待跨进程发送的旧值会被覆盖
+    volatile boolean conflate;
+    // 唯一值确定一个事件，等同于 group + event + type
+    final String key;
+    private final int mHash;
+    // 是否由当前进程定义，跨进程收到事件时创建的标识没有定义时的配置
+    private volatile boolean mDeclared;
+    // 对应的事件总线，创建之后只需要一次读取
+    volatile LiveDataWrapper<T> bus;
+    // 还没有事件总线时跨进程收到的最新值，只保留编码后的数据，创建总线时再解码
+    final AtomicReference<byte[]> raw = new AtomicReference<>();
+    // 当前进程发送这个事件的序号
+    private final AtomicLong mSequence = new AtomicLong();
+
+    private EventKey(final String group, final String event, final String type, final boolean multiProcess,
+                     final boolean conflate, final boolean declared) {
+        this.group = group;
+        this.event = event;
+        this.type = type;
+        this.multiProcess = multiProcess;
+        this.conflate = conflate;
+        this.mDeclared = declared;
+        this.key = group + event + type;
+        this.mHash = key.hashCode();
+    }
+
+    /**
+     * 获取事件标识，相同分组和事件名返回同一个实例
+     *
+     * @param group        分组
+     * @param event        事件名
+     * @param type         事件类型
+     * @param multiProcess 是否支持跨进程
+     * @param <T>          事件类型
+     * @return 事件标识
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <T> EventKey<T> obtain(String group, String event, @NonNull Class<T> type, boolean multiProcess) {
+        return obtain(group, event, type, multiProcess, false);
+    }
+
+    /**
+     * 获取事件标识，相同分组和事件名返回同一个实例，以第一次创建时的配置为准
+     *
+     * @param group        分组
+     * @param event        事件名
+     * @param type         事件类型
+     * @param multiProcess 是否支持跨进程
+     * @param conflate     是否只保留最新值
+     * @param <T>          事件类型
+     * @return 事件标识
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <T> EventKey<T> obtain(String group, String event, @NonNull Class<T> type, boolean multiProcess,
+                                         boolean conflate) {
+        return (EventKey<T>) obtain(group, event, type.getName(), multiProcess, conflate);
+    }
+
+    /**
+     * 获取当前进程定义的事件标识
+     *
+     * @param group        分组
+     * @param event        事件名
+     * @param type         事件类型名
+     * @param multiProcess 是否支持跨进程
+     * @param conflate     是否只保留最新值
+     * @return 事件标识
+     */
+    @NonNull
+    static EventKey<?> obtain(String group, String event, String type, boolean multiProcess, boolean conflate) {
+        return obtain(group, event, type, multiProcess, conflate, true);
+    }
+
+    /**
+     * 跨进程收到事件时获取事件标识，只有类型名，没有合并等配置
+     * 当前进程还没有定义这个事件时创建的标识不确定配置，之后定义事件时以定义为准
+     *
+     * @param group        分组
+     * @param event        事件名
+     * @param type         事件类型名，可能为空
+     * @param multiProcess 是否支持跨进程
+     * @return 事件标识
+     */
+    @NonNull
+    static EventKey<?> obtainRemote(String group, String event, String type, boolean multiProcess) {
+        return obtain(group, event, type, multiProcess, false, false);
+    }
+
+    @NonNull
+    private static EventKey<?> obtain(String group, String event, String type, boolean multiProcess, boolean conflate,
+                                      boolean declared) {
+        ConcurrentHashMap<String, EventKey<?>> events = sEventKeys.get(group);
+        if (events == null) {
+            synchronized (sEventKeys) {
+                events = sEventKeys.get(group);
+                if (events == null) {
+                    events = new ConcurrentHashMap<>();
+                    sEventKeys.put(group, events);
+                }
+            }
+        }
+        EventKey<?> eventKey = events.get(event);
+        if (eventKey == null || declared && !eventKey.mDeclared) {
+            synchronized (events) {
+                eventKey = events.get(event);
+                if (eventKey == null) {
+                    eventKey = new EventKey<>(group, event, type, multiProcess, conflate, declared);
+                    events.put(event, eventKey);
+                } else if (declared && !eventKey.mDeclared) {
+                    if (sameType(eventKey.type, type)) {
+                        // 跨进程收到事件时创建的标识，配置以当前进程的定义为准，创建事件总线时才读取配置
+                        eventKey.multiProcess = multiProcess;
+                        eventKey.conflate = conflate;
+                        eventKey.mDeclared = true;
+                    } else {
+                        // 收到的类型和定义不一致，以定义为准，跨进程收到的标识还没有事件总线，可以直接替换
+                        ElegantLog.w("Event(" + group + "." + event + ") was received with type " + eventKey.type);
+                        eventKey = new EventKey<>(group, event, type, multiProcess, conflate, true);
+                        events.put(event, eventKey);
+                    }
+                }
+            }
+        }
+        if (!sameType(eventKey.type, type)) {
+            // 一个分组不会有相同的事件名，即使类型不一样也不行，不使用事件定义方式时才可能出现
+            // 和事件总线一样按分组和事件名共用一个标识，保证标识中缓存的事件总线一致
+            ElegantLog.w("Event(" + group + "." + event + ") is already defined with type " + eventKey.type);
+        }
+        return eventKey;
+    }
+
+    private static boolean sameType(String type, String other) {
+        return type == null ? other == null : type.equals(other);
+    }
+
+    /**
+     * @return 当前进程发送这个事件的下一个序号
+     */
+    long nextSequence() {
+        return mSequence.incrementAndGet();
+    }
+
+    /**
+     * 创建当前进程的事件包装类，每个事件总线只需要创建一次
+     *
+     * @return 事件包装类
+     */
+    EventWrapper newWrapper() {
+        return new EventWrapper(ElegantUtil.getProcessName(), this);
+    }
+
+    @NonNull
+    public String getGroup() {
+        return group;
+    }
+
+    @NonNull
+    public String getEvent() {
+        return event;
+    }
+
+    @NonNull
+    public String getType() {
+        return type;
+    }
+
+    public boolean isMultiProcess() {
+        return multiProcess;
+    }
+
+    public boolean isConflate() {
+        return conflate;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EventKey)) return false;
+        EventKey<?> other = (EventKey<?>) o;
+        return mHash == other.mHash && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return mHash;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return key;
+    }
+}
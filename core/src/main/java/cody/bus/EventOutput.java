@@ -0,0 +1,144 @@
+/*
+ * ************************************************************
+ * 文件：EventOutput.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 21:52:33
+ * 上次修改时间：2026年10月17日 21:52:33
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * 事件值二进制编码输出
+ * <p>
+ * 整数使用变长编码，字符串和字节数组先写长度再写内容，null 用长度 -1 表示
+ */
+@SuppressWarnings("unused")
+public final class EventOutput {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    private byte[] mBuffer;
+    private int mPosition;
+
+    EventOutput(int capacity) {
+        mBuffer = new byte[Math.max(16, capacity)];
+    }
+
+    private void ensure(int size) {
+        if (mPosition + size > mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length << 1, mPosition + size));
+        }
+    }
+
+    public EventOutput writeByte(int value) {
+        ensure(1);
+        mBuffer[mPosition++] = (byte) value;
+        return this;
+    }
+
+    public EventOutput writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    public EventOutput writeShort(short value) {
+        return writeInt(value);
+    }
+
+    public EventOutput writeChar(char value) {
+        return writeVarInt(value);
+    }
+
+    /**
+     * 写入有符号整数，绝对值小的数字占用字节少
+     */
+    public EventOutput writeInt(int value) {
+        return writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public EventOutput writeLong(long value) {
+        return writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public EventOutput writeFloat(float value) {
+        int bits = Float.floatToIntBits(value);
+        ensure(4);
+        mBuffer[mPosition++] = (byte) bits;
+        mBuffer[mPosition++] = (byte) (bits >>> 8);
+        mBuffer[mPosition++] = (byte) (bits >>> 16);
+        mBuffer[mPosition++] = (byte) (bits >>> 24);
+        return this;
+    }
+
+    public EventOutput writeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        ensure(8);
+        for (int i = 0; i < 8; i++) {
+            mBuffer[mPosition++] = (byte) (bits >>> (i << 3));
+        }
+        return this;
+    }
+
+    public EventOutput writeString(@Nullable String value) {
+        if (value == null) {
+            return writeInt(-1);
+        }
+        return writeBytes(value.getBytes(UTF_8));
+    }
+
+    public EventOutput writeBytes(@Nullable byte[] value) {
+        if (value == null) {
+            return writeInt(-1);
+        }
+        writeInt(value.length);
+        ensure(value.length);
+        System.arraycopy(value, 0, mBuffer, mPosition, value.length);
+        mPosition += value.length;
+        return this;
+    }
+
+    /**
+     * 写入无符号变长整数，每个字节保存 7 位
+     */
+    EventOutput writeVarInt(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            mBuffer[mPosition++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        mBuffer[mPosition++] = (byte) value;
+        return this;
+    }
+
+    private EventOutput writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            mBuffer[mPosition++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        mBuffer[mPosition++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * 直接写入原始数据，不写长度
+     */
+    void writeRaw(@NonNull byte[] value) {
+        ensure(value.length);
+        System.arraycopy(value, 0, mBuffer, mPosition, value.length);
+        mPosition += value.length;
+    }
+
+    @NonNull
+    byte[] toByteArray() {
+        return Arrays.copyOf(mBuffer, mPosition);
+    }
+}
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：EventWrapper.java  模块：ElegantBus.core.main  项目：ElegantBus
- * 当前修改时间：2022年09月12日 17:58:58
- * 上次修改时间：2022年09月12日 17:47:29
+ * 当前修改时间：2026年10月17日 23:03:23
+ * 上次修改时间：2026年10月17日 22:29:15
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.core.main
- * Copyright (c) 2022
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -19,18 +19,40 @@ import android.os.Parcelable;
  * 进程间缓存事件封装类，事件定义
  */
 public class EventWrapper implements Parcelable {
+    // 序列化时和 multiProcess 共用一个字节
+    private static final int FLAG_MULTI_PROCESS = 1;
+    private static final int FLAG_DEFERRED = 1 << 1;
     // 发送事件所在进程
     String processName;
+    // 服务进程为发送进程分配的编号，转发时用来跳过发送者自己，0 表示未知
+    int origin;
+    // 发送进程中这个事件的序号，每次发送或者重置加1，接收进程按序号排序，0 表示没有序号，见 ReorderBuffer
+    long seq;
     // 发送事件到某个分组
     String group;
     // 发送的事件名
     String event;
-    // 发送的事件类型
+    // 发送的事件类型，跨进程收到只有类型编号的事件时，查询到类型名之前为 null
     String type;
-    // 发送的事件值的JSON串
-    String json;
+    // 服务进程分配的类型编号，跨进程时代替类型名，见 TypeResolver
+    int typeId;
+    // 发送的事件值编码后的数据，见 EventCodecs
+    byte[] data;
     // 是否支持多进程
     boolean multiProcess;
+    // 发送时其他进程都没有观察者，延迟发送的值，服务进程作为粘性事件转发，见 ipc 模块的 InterestFilter
+    boolean deferred;
+    // 较大的事件值放在共享内存中跨进程传递，此时 data 为 null，见 ipc 模块的 SharedPayload
+    Parcelable shared;
+    // 服务进程转发时序列化一次的数据，发往多个进程时共用，不参与序列化，见 ipc 模块的 PackedEvents
+    byte[] packed;
+    // 事件标识，不参与序列化，第一次使用时获取
+    private EventKey<?> mEventKey;
+
+    EventWrapper(final String processName, final EventKey<?> eventKey) {
+        this(processName, eventKey.group, eventKey.event, eventKey.type, null, eventKey.multiProcess);
+        mEventKey = eventKey;
+    }
 
     public EventWrapper(final String processName, final String group, final String event, final String type, final boolean multiProcess) {
         this(processName, group, event, type, null, multiProcess);
@@ -40,23 +62,47 @@ public class EventWrapper implements Parcelable {
                         final String group,
                         final String event,
                         final String type,
-                        final String json,
+                        final byte[] data,
                         final boolean multiProcess) {
         this.processName = processName;
         this.multiProcess = multiProcess;
         this.group = group;
         this.event = event;
         this.type = type;
-        this.json = json;
+        this.data = data;
     }
 
     protected EventWrapper(Parcel in) {
         processName = in.readString();
+        origin = in.readInt();
+        seq = in.readLong();
         group = in.readString();
         event = in.readString();
+        typeId = in.readInt();
         type = in.readString();
-        json = in.readString();
-        multiProcess = in.readByte() != 0;
+        if (type == null) {
+            type = TypeResolver.nameOf(typeId);
+        }
+        data = in.createByteArray();
+        byte flags = in.readByte();
+        multiProcess = (flags & FLAG_MULTI_PROCESS) != 0;
+        deferred = (flags & FLAG_DEFERRED) != 0;
+        shared = in.readParcelable(EventWrapper.class.getClassLoader());
+    }
+
+    /**
+     * 复制事件信息，带上新的值
+     *
+     * @param data 事件值编码后的数据
+     * @return 新的事件包装类
+     */
+    EventWrapper copy(final byte[] data) {
+        EventWrapper eventWrapper = new EventWrapper(processName, group, event, type, data, multiProcess);
+        eventWrapper.origin = origin;
+        eventWrapper.seq = seq;
+        eventWrapper.deferred = deferred;
+        eventWrapper.mEventKey = mEventKey;
+        return eventWrapper;
     }
 
     /**
@@ -65,7 +111,20 @@ public class EventWrapper implements Parcelable {
      * @return key
      */
     String getKey() {
-        return group + event + type;
+        return eventKey().key;
+    }
+
+    /**
+     * 获取事件标识，跨进程收到的事件只在第一次使用时查找
+     *
+     * @return 事件标识
+     */
+    EventKey<?> eventKey() {
+        if (mEventKey == null) {
+            // 跨进程收到的事件没有合并配置，当前进程定义过的事件以定义为准，之后定义的事件也会更新配置
+            mEventKey = EventKey.obtainRemote(group, event, type, multiProcess);
+        }
+        return mEventKey;
     }
 
     @Override
@@ -75,7 +134,7 @@ public class EventWrapper implements Parcelable {
                 ", group='" + group + '\'' +
                 ", event='" + event + '\'' +
                 ", type='" + type + '\'' +
-                ", json='" + json + '\'' +
+                ", data=" + (data == null ? 0 : data.length) + " bytes" +
                 ", multiProcess=" + multiProcess +
                 '}';
     }
@@ -94,16 +153,22 @@ public class EventWrapper implements Parcelable {
 
     @Override
     public int describeContents() {
-        return 0;
+        return shared == null ? 0 : shared.describeContents();
     }
 
     @Override
     public void writeToParcel(final Parcel dest, final int flags) {
         dest.writeString(processName);
+        dest.writeInt(origin);
+        dest.writeLong(seq);
         dest.writeString(group);
         dest.writeString(event);
-        dest.writeString(type);
-        dest.writeString(json);
-        dest.writeByte((byte) (multiProcess ? 1 : 0));
+        // 已经分配了编号的类型只写编号
+        int id = TypeResolver.idOf(type);
+        dest.writeInt(id);
+        dest.writeString(id == 0 ? type : null);
+        dest.writeByteArray(data);
+        dest.writeByte((byte) ((multiProcess ? FLAG_MULTI_PROCESS : 0) | (deferred ? FLAG_DEFERRED : 0)));
+        dest.writeParcelable(shared, flags);
     }
 }
\ No newline at end of file
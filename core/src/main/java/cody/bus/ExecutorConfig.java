@@ -0,0 +1,247 @@
+/*
+ * ************************************************************
+ * 文件：ExecutorConfig.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:53:37
+ * 上次修改时间：2026年10月17日 22:52:10
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 事件总线线程池配置，在 Application 的 onCreate 中通过 {@link BusFactory#setExecutorConfig(ExecutorConfig)} 设置
+ * <p>
+ * eg:<pre><code>
+ * BusFactory.setExecutorConfig(ExecutorConfig.create()
+ *         .setWorkerThreads(2)
+ *         .setQueueCapacity(256)
+ *         .setRejectPolicy(ExecutorConfig.RejectPolicy.DISCARD_OLDEST)
+ *         .setSeparateIoLane(true)
+ *         .setDecodeLanes(2));
+ * </code></pre>
+ */
+@SuppressWarnings("unused")
+public final class ExecutorConfig {
+    /**
+     * 后台观察者线程池队列满了之后的处理方式
+     */
+    public enum RejectPolicy {
+        // 放入溢出队列，由后台线程执行完当前任务后取出执行，不会在发送事件的线程中执行，溢出队列也满了时丢弃当前事件
+        OVERFLOW,
+        // 丢弃队列中最早的事件
+        DISCARD_OLDEST,
+        // 丢弃当前事件
+        DISCARD,
+        // 抛出 RejectedExecutionException
+        ABORT
+    }
+
+    private int mWorkerThreads;
+    private int mQueueCapacity = 1024;
+    private long mKeepAliveSeconds = 30;
+    private RejectPolicy mRejectPolicy = RejectPolicy.OVERFLOW;
+    private boolean mSeparateIoLane = false;
+    private int mDecodeLanes;
+
+    private ExecutorConfig() {
+        mWorkerThreads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        mDecodeLanes = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * @return 默认配置，后台线程数和 CPU 核数相关，最少2个最多4个
+     */
+    public static ExecutorConfig create() {
+        return new ExecutorConfig();
+    }
+
+    /**
+     * @param workerThreads 后台观察者线程数
+     * @return 当前配置
+     */
+    public ExecutorConfig setWorkerThreads(int workerThreads) {
+        mWorkerThreads = Math.max(1, workerThreads);
+        return this;
+    }
+
+    /**
+     * @param queueCapacity 后台观察者等待队列的最大长度
+     * @return 当前配置
+     */
+    public ExecutorConfig setQueueCapacity(int queueCapacity) {
+        mQueueCapacity = Math.max(1, queueCapacity);
+        return this;
+    }
+
+    /**
+     * @param keepAliveSeconds 空闲线程保留时间，秒
+     * @return 当前配置
+     */
+    public ExecutorConfig setKeepAliveSeconds(long keepAliveSeconds) {
+        mKeepAliveSeconds = Math.max(1, keepAliveSeconds);
+        return this;
+    }
+
+    /**
+     * @param rejectPolicy 队列满了之后的处理方式
+     * @return 当前配置
+     */
+    public ExecutorConfig setRejectPolicy(@NonNull RejectPolicy rejectPolicy) {
+        mRejectPolicy = rejectPolicy;
+        return this;
+    }
+
+    /**
+     * @param separateIoLane 跨进程调用是否使用单独的线程，和编解码分开
+     * @return 当前配置
+     */
+    public ExecutorConfig setSeparateIoLane(boolean separateIoLane) {
+        mSeparateIoLane = separateIoLane;
+        return this;
+    }
+
+    /**
+     * @param decodeLanes 跨进程收到事件的解码线程数，同一个事件总在同一个线程中解码
+     *                    第一次收到跨进程事件时创建，之后再修改不会生效
+     * @return 当前配置
+     */
+    public ExecutorConfig setDecodeLanes(int decodeLanes) {
+        mDecodeLanes = Math.max(1, decodeLanes);
+        return this;
+    }
+
+    public int getWorkerThreads() {
+        return mWorkerThreads;
+    }
+
+    public int getQueueCapacity() {
+        return mQueueCapacity;
+    }
+
+    public long getKeepAliveSeconds() {
+        return mKeepAliveSeconds;
+    }
+
+    public RejectPolicy getRejectPolicy() {
+        return mRejectPolicy;
+    }
+
+    public boolean isSeparateIoLane() {
+        return mSeparateIoLane;
+    }
+
+    public int getDecodeLanes() {
+        return mDecodeLanes;
+    }
+
+    RejectHandler rejectedExecutionHandler() {
+        return new RejectHandler(mRejectPolicy, mQueueCapacity);
+    }
+
+    /**
+     * 队列满了之后的处理，不会在提交任务的线程中执行
+     * <p>
+     * 串行通道中保存了多个事件，不能被丢弃，总是放入溢出队列，每个通道同一时刻最多只有一个任务，数量不超过通道数；
+     * 其他任务按 {@link RejectPolicy#OVERFLOW} 放入溢出队列时最多保留等待队列长度个，再多就丢弃。
+     * 线程池中的线程每执行完一个任务取出溢出的任务放回等待队列；线程池已经关闭时提交到新的线程池
+     */
+    static final class RejectHandler implements RejectedExecutionHandler {
+        private final RejectPolicy mPolicy;
+        private final int mCapacity;
+        private final ConcurrentLinkedDeque<Runnable> mOverflow = new ConcurrentLinkedDeque<>();
+        // 溢出队列中不是串行通道的任务数
+        private final AtomicInteger mPlainCount = new AtomicInteger();
+
+        RejectHandler(final RejectPolicy policy, final int capacity) {
+            mPolicy = policy;
+            mCapacity = capacity;
+        }
+
+        @Override
+        public void rejectedExecution(final Runnable runnable, final ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                // 更换配置时旧线程池已经关闭，提交到新的线程池
+                BusFactory.ready().getExecutorService().execute(runnable);
+                return;
+            }
+            if (runnable instanceof SerialTask) {
+                mOverflow.addLast(runnable);
+                return;
+            }
+            switch (mPolicy) {
+                case DISCARD_OLDEST:
+                    Runnable oldest = executor.getQueue().poll();
+                    if (oldest instanceof SerialTask) {
+                        mOverflow.addLast(oldest);
+                    }
+                    // 空出的位置被其他线程占用时丢弃当前事件
+                    executor.getQueue().offer(runnable);
+                    break;
+                case DISCARD:
+                    break;
+                case ABORT:
+                    throw new RejectedExecutionException("ElegantBus worker queue is full, " + executor);
+                case OVERFLOW:
+                default:
+                    if (mPlainCount.incrementAndGet() > mCapacity) {
+                        mPlainCount.decrementAndGet();
+                        ElegantLog.w("ElegantBus worker overflow is full, discard task.");
+                        break;
+                    }
+                    mOverflow.addLast(runnable);
+                    break;
+            }
+        }
+
+        private Runnable pollOverflow() {
+            Runnable runnable = mOverflow.pollFirst();
+            if (runnable != null && !(runnable instanceof SerialTask)) {
+                mPlainCount.decrementAndGet();
+            }
+            return runnable;
+        }
+
+        /**
+         * 在线程池的线程中执行完一个任务后调用，溢出的任务按顺序放回等待队列，由当前线程继续执行
+         *
+         * @param executor 线程池
+         */
+        void drainOverflow(@NonNull ThreadPoolExecutor executor) {
+            Runnable runnable;
+            while ((runnable = pollOverflow()) != null) {
+                if (!executor.getQueue().offer(runnable)) {
+                    if (!(runnable instanceof SerialTask)) {
+                        mPlainCount.incrementAndGet();
+                    }
+                    mOverflow.addFirst(runnable);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 线程池关闭后，剩下的溢出任务提交到新的线程池
+         *
+         * @param executor 新的线程池
+         */
+        void moveOverflow(@NonNull Executor executor) {
+            Runnable runnable;
+            while ((runnable = pollOverflow()) != null) {
+                executor.execute(runnable);
+            }
+        }
+    }
+}
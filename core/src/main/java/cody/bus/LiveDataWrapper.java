@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：LiveDataWrapper.java  模块：ElegantBus.core.main  项目：ElegantBus
- * 当前修改时间：2022年09月12日 17:58:58
- * 上次修改时间：2022年09月12日 17:47:29
+ * 当前修改时间：2026年10月17日 23:00:50
+ * 上次修改时间：2026年10月17日 22:57:04
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.core.main
- * Copyright (c) 2022
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -44,12 +44,26 @@ public interface LiveDataWrapper<T> {
 
     /**
      * 获取最后保留的值，比如登录状态 可能会没有初始化就会没有值
+     * <p>
+     * 跨进程事件只转发给观察了这个事件的进程，当前进程没有观察者时不会收到其他进程发送的值，
+     * 这时返回的可能是旧值；重新开始观察时会补发错过的最新值，只有观察期间其他进程发送的值才是最新的
      *
      * @return 获取最后保留的值
      */
     @Nullable
     T getValue();
 
+    /**
+     * 只保留最新值的事件，被新值覆盖没有分发或者没有发送到其他进程的次数
+     *
+     * 默认返回 0，已有的实现类不需要修改
+     *
+     * @return 被覆盖的次数，不合并的事件总是 0
+     */
+    default long getConflatedCount() {
+        return 0;
+    }
+
     /**
      * 如果在多线程中调用，保留每一个值
      * 无需关心调用线程，只要确保在相同进程中就可以
@@ -0,0 +1,171 @@
+/*
+ * ************************************************************
+ * 文件：MainDispatcher.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 21:37:33
+ * 上次修改时间：2026年10月17日 21:26:49
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import android.os.SystemClock;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 其他线程发送到主线程的事件统一分发
+ * <p>
+ * 所有事件总线共用一个主线程任务，每次最多分发 {@link #getMaxEventsPerDrain()} 个事件或者耗时不超过
+ * {@link #getMaxDrainMillis()} 毫秒，剩下的事件下一次消息循环再分发，避免大量事件阻塞界面绘制。
+ * 同一个事件的值按发送顺序分发。
+ */
+@SuppressWarnings("unused")
+public final class MainDispatcher {
+    private static final int DEFAULT_MAX_EVENTS = 64;
+    private static final long DEFAULT_MAX_MILLIS = 4;
+    // 有待分发事件的总线，每个总线最多在队列中出现一次
+    private final ArrayDeque<ActiveLiveDataWrapper<?>> mReadyBus = new ArrayDeque<>();
+    private final AtomicInteger mQueueDepth = new AtomicInteger();
+    private final Runnable mDrainTask = this::drain;
+    private boolean mScheduled;
+    private long mScheduledTime;
+    private volatile int mMaxEventsPerDrain = DEFAULT_MAX_EVENTS;
+    private volatile long mMaxDrainMillis = DEFAULT_MAX_MILLIS;
+    private volatile long mLastDrainLatency;
+    private volatile long mMaxDrainLatency;
+    private volatile long mDrainCount;
+
+    MainDispatcher() {
+    }
+
+    /**
+     * 设置每次分发的预算
+     *
+     * @param maxEvents 每次最多分发的事件数
+     * @param maxMillis 每次最多分发的时间，毫秒
+     */
+    public void setBudget(int maxEvents, long maxMillis) {
+        mMaxEventsPerDrain = Math.max(1, maxEvents);
+        mMaxDrainMillis = Math.max(0, maxMillis);
+    }
+
+    public int getMaxEventsPerDrain() {
+        return mMaxEventsPerDrain;
+    }
+
+    public long getMaxDrainMillis() {
+        return mMaxDrainMillis;
+    }
+
+    /**
+     * @return 等待主线程分发的事件数
+     */
+    public int getQueueDepth() {
+        return mQueueDepth.get();
+    }
+
+    /**
+     * @return 最近一次从安排分发到开始分发的等待时间，毫秒
+     */
+    public long getLastDrainLatency() {
+        return mLastDrainLatency;
+    }
+
+    /**
+     * @return 从安排分发到开始分发的最长等待时间，毫秒
+     */
+    public long getMaxDrainLatency() {
+        return mMaxDrainLatency;
+    }
+
+    /**
+     * @return 主线程分发任务执行的次数
+     */
+    public long getDrainCount() {
+        return mDrainCount;
+    }
+
+    /**
+     * 事件总线有新的待分发值
+     */
+    void onEnqueue() {
+        mQueueDepth.incrementAndGet();
+    }
+
+    /**
+     * 新值覆盖了等待分发的旧值，待分发数量不变
+     */
+    void onConflated() {
+        mQueueDepth.decrementAndGet();
+    }
+
+    /**
+     * 事件总线从没有待分发值变为有待分发值时加入分发队列
+     *
+     * @param bus 事件总线
+     */
+    void schedule(@NonNull ActiveLiveDataWrapper<?> bus) {
+        synchronized (mReadyBus) {
+            mReadyBus.addLast(bus);
+            if (!mScheduled) {
+                mScheduled = true;
+                mScheduledTime = SystemClock.uptimeMillis();
+                BusFactory.ready().getMainHandler().post(mDrainTask);
+            }
+        }
+    }
+
+    @MainThread
+    private void drain() {
+        long start = SystemClock.uptimeMillis();
+        long latency;
+        synchronized (mReadyBus) {
+            latency = start - mScheduledTime;
+        }
+        mLastDrainLatency = latency;
+        if (latency > mMaxDrainLatency) {
+            mMaxDrainLatency = latency;
+        }
+        mDrainCount++;
+        int budget = mMaxEventsPerDrain;
+        long deadline = start + mMaxDrainMillis;
+        while (budget > 0) {
+            ActiveLiveDataWrapper<?> bus;
+            synchronized (mReadyBus) {
+                bus = mReadyBus.pollFirst();
+            }
+            if (bus == null) {
+                break;
+            }
+            int limit = budget;
+            int count = bus.drainPendingValues(limit);
+            mQueueDepth.addAndGet(-count);
+            budget -= count;
+            if (count == limit) {
+                // 预算用完时总线可能还有值没有分发，放到队尾，下次继续分发，避免一个事件占满预算
+                synchronized (mReadyBus) {
+                    mReadyBus.addLast(bus);
+                }
+            }
+            if (SystemClock.uptimeMillis() >= deadline) {
+                break;
+            }
+        }
+        synchronized (mReadyBus) {
+            if (mReadyBus.isEmpty()) {
+                mScheduled = false;
+            } else {
+                mScheduledTime = SystemClock.uptimeMillis();
+                BusFactory.ready().getMainHandler().post(mDrainTask);
+            }
+        }
+    }
+}
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：MultiProcess.java  模块：ElegantBus.core.main  项目：ElegantBus
- * 当前修改时间：2023年06月05日 20:59:58
- * 上次修改时间：2023年06月05日 20:43:19
+ * 当前修改时间：2026年10月17日 22:44:20
+ * 上次修改时间：2026年10月17日 21:49:21
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.core.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -18,6 +18,7 @@ public interface MultiProcess {
     int MSG_ON_POST = 0x05;// service分发到当前进程的消息
     int MSG_ON_POST_STICKY = 0x06;// service分发到当前进程的Sticky消息
     int MSG_ON_RESET_STICKY = 0x07;// service分发到当前进程重置sticky
+    int MSG_ON_SKIP = 0x0C;// service丢弃了发往当前进程的事件，只带事件标识和序号，不用再等待
     String MSG_DATA = "MSG_DATA";
 
     boolean isBound();
@@ -56,4 +57,18 @@ public interface MultiProcess {
      * @param eventWrapper 事件包装类
      */
     void resetSticky(EventWrapper eventWrapper);
+
+    /**
+     * 当前进程开始观察这个事件，服务进程之后才会转发这个事件到当前进程
+     *
+     * @param eventWrapper 事件包装类
+     */
+    void subscribe(EventWrapper eventWrapper);
+
+    /**
+     * 当前进程已经没有这个事件的观察者，服务进程不再转发这个事件到当前进程
+     *
+     * @param eventWrapper 事件包装类
+     */
+    void unsubscribe(EventWrapper eventWrapper);
 }
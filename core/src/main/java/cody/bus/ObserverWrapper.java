@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ObserverWrapper.java  模块：ElegantBus.core.main  项目：ElegantBus
- * 当前修改时间：2022年09月12日 17:58:58
- * 上次修改时间：2022年09月12日 17:47:28
+ * 当前修改时间：2026年10月17日 22:54:55
+ * 上次修改时间：2026年10月17日 21:35:39
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.core.main
- * Copyright (c) 2022
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -15,7 +15,6 @@ package cody.bus;
 
 import androidx.annotation.Nullable;
 import androidx.lifecycle.LifecycleOwner;
-import androidx.lifecycle.Observer;
 
 /**
  * Created by xu.yi. on 2019/3/31.
@@ -24,15 +23,16 @@ import androidx.lifecycle.Observer;
 @SuppressWarnings("unused")
 public abstract class ObserverWrapper<T> {
     LifecycleOwner owner;// 没有owner就是forever
-    Observer<ValueWrapper<T>> observer;
-    // 每个观察者都记录自己序号，只有在进入观察状态之后产生的数据才通知到观察者
-    int sequence;
     //  优先级高的先收到事件，默认优先级为0，数字越大优先级越高
     int priority = 0;
     // 默认不是粘性事件，不会收到监听之前发送的事件
     boolean sticky = false;
     // 默认在主线程监听
     boolean uiThread = true;
+    // 非UI线程回调时是否按顺序逐个回调，默认每个事件单独提交到线程池，可能乱序或并发
+    boolean ordered = false;
+    // 按顺序回调时的串行通道，第一次分发时创建
+    private SerialLane<T> mSerialLane;
 
     public ObserverWrapper() {
     }
@@ -81,9 +81,48 @@ public abstract class ObserverWrapper<T> {
      * @param uiThread 是否在UI线程监听回调
      */
     public ObserverWrapper(final int priority, final boolean sticky, final boolean uiThread) {
+        this(priority, sticky, uiThread, false);
+    }
+
+    /**
+     * 构造函数
+     * @param priority 优先级，数字越大优先级越高
+     * @param sticky 是否粘性事件
+     * @param uiThread 是否在UI线程监听回调
+     * @param ordered 非UI线程回调时是否按发送顺序逐个回调，不同观察者之间仍然并行
+     */
+    public ObserverWrapper(final int priority, final boolean sticky, final boolean uiThread, final boolean ordered) {
         this.priority = priority;
         this.sticky = sticky;
         this.uiThread = uiThread;
+        this.ordered = ordered;
+    }
+
+    /**
+     * 产生的事件序号要大于观察者序号才被通知事件变化
+     * 值包裹类会被循环使用，需要先取出值
+     * 只在主线程中调用
+     *
+     * @param valueWrapper 值包裹类
+     * @param sequence     观察者在发送值的总线上的序号
+     */
+    final void dispatch(@Nullable ValueWrapper<T> valueWrapper, int sequence) {
+        if (valueWrapper != null && valueWrapper.sequence > sequence) {
+            final T value = valueWrapper.value;
+            if (uiThread) {
+                onChanged(value);
+            } else if (ordered) {
+                if (mSerialLane == null) {
+                    mSerialLane = new SerialLane<>(this);
+                }
+                mSerialLane.offer(value);
+            } else {
+                BusFactory
+                        .ready()
+                        .getExecutorService()
+                        .execute(() -> onChanged(value));
+            }
+        }
     }
 
     /**
@@ -0,0 +1,131 @@
+/*
+ * ************************************************************
+ * 文件：OwnerSubscriptions.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:55:28
+ * 上次修改时间：2026年10月17日 21:31:33
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * 同一个事件总线中某个生命周期拥有者的所有订阅
+ * <p>
+ * 每个拥有者只注册一次生命周期监听，生命周期变化时只处理自己的订阅，销毁时直接移除，不需要遍历所有观察者
+ */
+@MainThread
+final class OwnerSubscriptions<T> implements LifecycleEventObserver {
+    final ActiveLiveDataWrapper<T> bus;
+    final LifecycleOwner owner;
+    // 按优先级从高到低排列，相同优先级按加入顺序
+    private Subscription<T> mHead;
+    private int mSize;
+    private boolean mActive;
+
+    OwnerSubscriptions(@NonNull ActiveLiveDataWrapper<T> bus, @NonNull LifecycleOwner owner) {
+        this.bus = bus;
+        this.owner = owner;
+    }
+
+    boolean isEmpty() {
+        return mHead == null;
+    }
+
+    /**
+     * @return 生命周期至少为 STARTED 时为激活状态
+     */
+    boolean isActive() {
+        return mActive;
+    }
+
+    void add(@NonNull Subscription<T> subscription) {
+        subscription.group = this;
+        Subscription<T> previous = null;
+        Subscription<T> next = mHead;
+        while (next != null && next.priority >= subscription.priority) {
+            previous = next;
+            next = next.ownerNext;
+        }
+        subscription.ownerPrevious = previous;
+        subscription.ownerNext = next;
+        if (previous == null) {
+            mHead = subscription;
+        } else {
+            previous.ownerNext = subscription;
+        }
+        if (next != null) {
+            next.ownerPrevious = subscription;
+        }
+        mSize++;
+    }
+
+    void remove(@NonNull Subscription<T> subscription) {
+        if (subscription.group != this) {
+            return;
+        }
+        if (subscription.ownerPrevious == null) {
+            mHead = subscription.ownerNext;
+        } else {
+            subscription.ownerPrevious.ownerNext = subscription.ownerNext;
+        }
+        if (subscription.ownerNext != null) {
+            subscription.ownerNext.ownerPrevious = subscription.ownerPrevious;
+        }
+        subscription.group = null;
+        subscription.ownerPrevious = null;
+        subscription.ownerNext = null;
+        mSize--;
+    }
+
+    /**
+     * 按优先级取出当前所有订阅，遍历时回调中增删订阅不影响这次遍历
+     *
+     * @return 订阅数组
+     */
+    @SuppressWarnings("unchecked")
+    private Subscription<T>[] snapshot() {
+        Subscription<T>[] snapshot = new Subscription[mSize];
+        int index = 0;
+        for (Subscription<T> subscription = mHead; subscription != null; subscription = subscription.ownerNext) {
+            snapshot[index++] = subscription;
+        }
+        return snapshot;
+    }
+
+    /**
+     * 移除这个拥有者的所有订阅
+     */
+    void removeAll() {
+        for (Subscription<T> subscription : snapshot()) {
+            bus.detach(subscription);
+        }
+    }
+
+    @Override
+    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        Lifecycle.State state = source.getLifecycle().getCurrentState();
+        if (state == Lifecycle.State.DESTROYED) {
+            removeAll();
+            return;
+        }
+        boolean active = state.isAtLeast(Lifecycle.State.STARTED);
+        if (active == mActive) {
+            return;
+        }
+        mActive = active;
+        // 回调中可能移除后面的订阅，遍历分发前的快照，已经移除的订阅不再激活
+        for (Subscription<T> subscription : snapshot()) {
+            bus.activeStateChanged(subscription, active);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * ************************************************************
+ * 文件：PendingValues.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 21:37:33
+ * 上次修改时间：2026年10月17日 21:26:49
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 其他线程发送到主线程的事件值队列，按发送顺序保存
+ * 使用数组循环保存，容量不够时扩容，稳定之后不再分配对象
+ * 合并模式下，队尾是同类值时直接覆盖，只分发最新值
+ */
+final class PendingValues<T> {
+    // 取出的值类型，保存在包裹类的 sequence 中
+    static final int STICKY = 0;
+    static final int NORMAL = 1;
+    // 添加结果
+    static final int SCHEDULE = 0;
+    static final int QUEUED = 1;
+    static final int CONFLATED = 2;
+    private static final int INITIAL_CAPACITY = 16;
+    private Object[] mValues = new Object[INITIAL_CAPACITY];
+    private boolean[] mSticky = new boolean[INITIAL_CAPACITY];
+    private int mHead;
+    private int mSize;
+    // 是否已经加入主线程分发队列
+    private boolean mScheduled;
+    private final boolean mConflate;
+    // 被覆盖没有分发的值个数
+    private long mConflatedCount;
+
+    PendingValues(boolean conflate) {
+        mConflate = conflate;
+    }
+
+    /**
+     * 添加一个待分发的值
+     *
+     * @param value  值
+     * @param sticky 是否是跨进程同步过来的粘性值
+     * @return {@link #SCHEDULE} 需要安排主线程分发，{@link #QUEUED} 已经安排过不再重复安排，
+     * {@link #CONFLATED} 覆盖了队尾的旧值
+     */
+    synchronized int offer(@NonNull T value, boolean sticky) {
+        if (mConflate && mSize > 0) {
+            int last = (mHead + mSize - 1) & (mValues.length - 1);
+            if (mSticky[last] == sticky) {
+                mValues[last] = value;
+                mConflatedCount++;
+                return CONFLATED;
+            }
+        }
+        if (mSize == mValues.length) {
+            grow();
+        }
+        int tail = (mHead + mSize) & (mValues.length - 1);
+        mValues[tail] = value;
+        mSticky[tail] = sticky;
+        mSize++;
+        if (mScheduled) {
+            return QUEUED;
+        }
+        mScheduled = true;
+        return SCHEDULE;
+    }
+
+    /**
+     * 取出第一个值，同时返回是否是粘性值
+     *
+     * @param target 用于接收值的包裹类，sequence 为 {@link #STICKY} 或 {@link #NORMAL}
+     * @return 是否取到值，没有值时取消分发安排，下次添加时重新安排
+     */
+    @SuppressWarnings("unchecked")
+    synchronized boolean poll(@NonNull ValueWrapper<T> target) {
+        if (mSize == 0) {
+            mScheduled = false;
+            return false;
+        }
+        target.value = (T) mValues[mHead];
+        target.sequence = mSticky[mHead] ? STICKY : NORMAL;
+        mValues[mHead] = null;
+        mHead = (mHead + 1) & (mValues.length - 1);
+        mSize--;
+        return true;
+    }
+
+    synchronized boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    synchronized long conflatedCount() {
+        return mConflatedCount;
+    }
+
+    private void grow() {
+        int capacity = mValues.length;
+        Object[] values = new Object[capacity << 1];
+        boolean[] sticky = new boolean[capacity << 1];
+        for (int i = 0; i < mSize; i++) {
+            int index = (mHead + i) & (capacity - 1);
+            values[i] = mValues[index];
+            sticky[i] = mSticky[index];
+        }
+        mValues = values;
+        mSticky = sticky;
+        mHead = 0;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * ************************************************************
+ * 文件：ReorderBuffer.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:44:20
+ * 上次修改时间：2026年10月17日 22:18:30
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 跨进程收到的事件按发送顺序分发
+ * <p>
+ * 发送进程为每个事件分配递增的序号 {@link EventWrapper#seq}，接收时按 发送进程编号 + 分组 + 事件名 分成不同的序列。
+ * 普通事件序号不连续时先保留后面的事件，等待前面的事件，超过 {@link #GAP_MILLIS} 还没有收到时认为已经丢失，按顺序分发保留的事件。
+ * 服务进程的待发送队列丢弃事件时会发送 {@link MultiProcess#MSG_ON_SKIP}，重新观察事件时清空这个事件的序列，这两种情况不需要等待。
+ * 粘性事件和重置只代表最新状态，不需要等待。
+ * 序号不大于已经分发的事件是过期的值，直接丢弃。没有发送进程编号或者序号的事件直接分发。
+ * 同一个序列只在同一个解码线程中处理，见 {@link BusFactory#executeDecode(EventWrapper, Runnable)}。
+ * 发送进程结束后服务进程通知移除它的所有序列，见 {@link #evict(int)}。
+ */
+final class ReorderBuffer {
+    private static final long GAP_MILLIS = 50;
+    // 发送进程编号 -> 序列标识（分组 + 事件名） -> 序列状态
+    private static final ConcurrentHashMap<Integer, ConcurrentHashMap<String, Stream>> sStreams =
+            new ConcurrentHashMap<>();
+    // 已经结束的发送进程，之后收到的事件直接分发，不再创建序列
+    private static final Set<Integer> sGone = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // 等待超时的定时线程，不占用主线程
+    private static final ScheduledThreadPoolExecutor sTimer = newTimer();
+
+    private static final class Pending {
+        final EventWrapper eventWrapper;
+        final int what;
+
+        Pending(final EventWrapper eventWrapper, final int what) {
+            this.eventWrapper = eventWrapper;
+            this.what = what;
+        }
+    }
+
+    private static final class Stream {
+        // 用于找到序列所在的解码线程
+        final String group;
+        final String event;
+        // 最后分发的序号
+        long last;
+        // 服务进程丢弃的最大序号，不大于这个序号的缺口不会再收到，不用等待
+        long skipped;
+        // 等待前面序号的事件
+        final TreeMap<Long, Pending> held = new TreeMap<>();
+        boolean gapScheduled;
+
+        Stream(final EventWrapper eventWrapper) {
+            this.group = eventWrapper.group;
+            this.event = eventWrapper.event;
+        }
+    }
+
+    private ReorderBuffer() {
+    }
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ElegantBus-reorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static String streamId(EventWrapper eventWrapper) {
+        return eventWrapper.group + "/" + eventWrapper.event;
+    }
+
+    /**
+     * 收到一个事件，在事件所在的解码线程中调用
+     *
+     * @param eventWrapper 事件
+     * @param what         消息类型
+     */
+    static void offer(@NonNull EventWrapper eventWrapper, int what) {
+        boolean skip = what == MultiProcess.MSG_ON_SKIP;
+        if (eventWrapper.origin == 0 || eventWrapper.seq == 0 || sGone.contains(eventWrapper.origin)) {
+            if (!skip) {
+                ElegantUtil.decode(eventWrapper, what);
+            }
+            return;
+        }
+        ConcurrentHashMap<String, Stream> streams = sStreams.get(eventWrapper.origin);
+        if (streams == null) {
+            streams = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, Stream> old = sStreams.putIfAbsent(eventWrapper.origin, streams);
+            if (old != null) {
+                streams = old;
+            }
+        }
+        String id = streamId(eventWrapper);
+        Stream stream = streams.get(id);
+        if (stream == null) {
+            // 同一个序列只在一个线程中处理，不会重复创建
+            stream = new Stream(eventWrapper);
+            streams.put(id, stream);
+        }
+        long seq = eventWrapper.seq;
+        if (skip) {
+            // 服务进程丢弃了这个序号，之前缺少的事件不会再收到，不修改 last，之后收到更早的粘性事件仍然分发
+            if (seq > stream.skipped) {
+                stream.skipped = seq;
+                drain(stream);
+            }
+            return;
+        }
+        if (stream.last != 0 && seq <= stream.last) {
+            ElegantLog.d("Drop out of order event, seq = " + seq + ", last = " + stream.last + ", Event = " + eventWrapper);
+            return;
+        }
+        if (stream.last != 0 && seq > stream.last + 1 && seq > stream.skipped + 1
+                && what == MultiProcess.MSG_ON_POST) {
+            stream.held.put(seq, new Pending(eventWrapper, what));
+            scheduleGap(stream);
+            return;
+        }
+        deliver(stream, eventWrapper, what);
+        drain(stream);
+    }
+
+    /**
+     * 重新连接服务进程时调用，服务进程重启后发送进程编号重新分配
+     */
+    static void clear() {
+        sStreams.clear();
+        sGone.clear();
+    }
+
+    /**
+     * 当前进程重新开始观察事件时调用，期间服务进程没有转发这个事件，序号不连续不需要等待
+     *
+     * @param eventWrapper 事件
+     */
+    static void reset(@NonNull final EventWrapper eventWrapper) {
+        BusFactory.ready().executeDecode(eventWrapper, () -> {
+            String id = streamId(eventWrapper);
+            for (ConcurrentHashMap<String, Stream> streams : sStreams.values()) {
+                Stream stream = streams.remove(id);
+                if (stream != null) {
+                    flush(stream);
+                }
+            }
+        });
+    }
+
+    /**
+     * 发送进程已经结束，移除它的所有序列，保留的事件不再等待
+     *
+     * @param origin 发送进程编号
+     */
+    static void evict(int origin) {
+        sGone.add(origin);
+        ConcurrentHashMap<String, Stream> streams = sStreams.remove(origin);
+        if (streams == null) {
+            return;
+        }
+        for (final Stream stream : streams.values()) {
+            BusFactory.ready().executeDecode(stream.group, stream.event, () -> flush(stream));
+        }
+    }
+
+    private static void deliver(Stream stream, EventWrapper eventWrapper, int what) {
+        stream.last = eventWrapper.seq;
+        ElegantUtil.decode(eventWrapper, what);
+    }
+
+    private static void drain(Stream stream) {
+        while (!stream.held.isEmpty()) {
+            long first = stream.held.firstKey();
+            if (first <= stream.last) {
+                // 粘性事件已经分发了更新的值
+                stream.held.remove(first);
+            } else if (first == stream.last + 1 || first <= stream.skipped + 1) {
+                Pending pending = stream.held.remove(first);
+                deliver(stream, pending.eventWrapper, pending.what);
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按顺序分发保留的全部事件，只在序列所在的解码线程中调用
+     */
+    private static void flush(Stream stream) {
+        Map.Entry<Long, Pending> first;
+        while ((first = stream.held.pollFirstEntry()) != null) {
+            if (first.getKey() > stream.last) {
+                deliver(stream, first.getValue().eventWrapper, first.getValue().what);
+            }
+        }
+    }
+
+    private static void scheduleGap(final Stream stream) {
+        if (stream.gapScheduled) {
+            return;
+        }
+        stream.gapScheduled = true;
+        sTimer.schedule(() -> BusFactory.ready().executeDecode(stream.group, stream.event, () -> skipGap(stream)),
+                GAP_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 等待超时，跳过缺少的序号
+     */
+    private static void skipGap(Stream stream) {
+        stream.gapScheduled = false;
+        Map.Entry<Long, Pending> first = stream.held.pollFirstEntry();
+        if (first == null) {
+            return;
+        }
+        ElegantLog.w("Skip missing events, from seq = " + (stream.last + 1) + " to " + (first.getKey() - 1) +
+                ", Event = " + first.getValue().eventWrapper);
+        deliver(stream, first.getValue().eventWrapper, first.getValue().what);
+        drain(stream);
+        if (!stream.held.isEmpty()) {
+            scheduleGap(stream);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * ************************************************************
+ * 文件：SerialLane.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 21:44:37
+ * 上次修改时间：2026年10月17日 21:35:39
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+
+/**
+ * 后台观察者的串行通道
+ * <p>
+ * 同一个观察者的事件按发送顺序依次回调，不会并发执行；不同观察者的通道在共用线程池中并行执行。
+ * 通道本身就是提交到线程池的任务，同一时刻最多只有一个任务在排队或执行。
+ *
+ * @param <T> 事件类型
+ */
+final class SerialLane<T> implements SerialTask {
+    // 每次最多执行的事件数，超过后重新排队，让其他观察者的事件也能执行
+    private static final int MAX_EVENTS_PER_RUN = 32;
+    // ArrayDeque 不能保存 null
+    private static final Object NULL_VALUE = new Object();
+    private final ObserverWrapper<T> mObserver;
+    private final ArrayDeque<Object> mValues = new ArrayDeque<>();
+    private boolean mScheduled;
+
+    SerialLane(@NonNull ObserverWrapper<T> observer) {
+        mObserver = observer;
+    }
+
+    /**
+     * 添加待回调的值，通道空闲时提交到线程池
+     *
+     * @param value 事件值
+     */
+    void offer(@Nullable T value) {
+        synchronized (mValues) {
+            mValues.addLast(value == null ? NULL_VALUE : value);
+            if (mScheduled) {
+                return;
+            }
+            mScheduled = true;
+        }
+        BusFactory.ready().getExecutorService().execute(this);
+    }
+
+    /**
+     * @return 等待回调的值个数
+     */
+    int size() {
+        synchronized (mValues) {
+            return mValues.size();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run() {
+        boolean idle = false;
+        try {
+            for (int i = 0; i < MAX_EVENTS_PER_RUN; i++) {
+                Object value;
+                synchronized (mValues) {
+                    value = mValues.pollFirst();
+                    if (value == null) {
+                        mScheduled = false;
+                        idle = true;
+                        return;
+                    }
+                }
+                mObserver.onChanged(value == NULL_VALUE ? null : (T) value);
+            }
+        } finally {
+            // 预算用完或者回调抛出异常时，剩下的值继续排队，不能让通道停止
+            if (!idle) {
+                BusFactory.ready().getExecutorService().execute(this);
+            }
+        }
+    }
+}
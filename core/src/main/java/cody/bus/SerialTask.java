@@ -0,0 +1,20 @@
+/*
+ * ************************************************************
+ * 文件：SerialTask.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 21:44:37
+ * 上次修改时间：2026年10月17日 21:44:37
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+/**
+ * 自己保存了待处理数据的串行任务，同一时刻最多只有一个在排队或执行
+ * 提交到线程池时不能被丢弃，否则保存的数据再也不会被处理
+ */
+interface SerialTask extends Runnable {
+}
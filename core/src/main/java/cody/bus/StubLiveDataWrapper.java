@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：StubLiveDataWrapper.java  模块：ElegantBus.core.main  项目：ElegantBus
- * 当前修改时间：2022年09月12日 17:58:58
- * 上次修改时间：2022年09月12日 17:47:29
+ * 当前修改时间：2026年10月17日 23:00:50
+ * 上次修改时间：2026年10月17日 21:37:33
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.core.main
- * Copyright (c) 2022
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -0,0 +1,111 @@
+/*
+ * ************************************************************
+ * 文件：SubscriberList.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 21:30:24
+ * 上次修改时间：2026年10月17日 21:30:24
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 按优先级分桶保存的订阅，优先级高的先分发，相同优先级按订阅顺序分发
+ * <p>
+ * 添加时只需要查找优先级对应的桶 O(log n)，再加入桶内链表末尾；移除时直接从链表中断开。
+ * 分发使用的数组只在订阅变化后的下一次分发时重新生成，事件分发时不再创建对象
+ */
+@MainThread
+final class SubscriberList<T> {
+    private static final Subscription<?>[] EMPTY = new Subscription<?>[0];
+    // 优先级从高到低
+    private final TreeMap<Integer, Bucket<T>> mBuckets = new TreeMap<>(Collections.reverseOrder());
+    private volatile int mSize;
+    private Subscription<T>[] mSnapshot;
+
+    static final class Bucket<T> {
+        Subscription<T> head;
+        Subscription<T> tail;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    void add(@NonNull Subscription<T> subscription) {
+        Bucket<T> bucket = mBuckets.get(subscription.priority);
+        if (bucket == null) {
+            bucket = new Bucket<>();
+            mBuckets.put(subscription.priority, bucket);
+        }
+        subscription.bucket = bucket;
+        subscription.previous = bucket.tail;
+        subscription.next = null;
+        if (bucket.tail == null) {
+            bucket.head = subscription;
+        } else {
+            bucket.tail.next = subscription;
+        }
+        bucket.tail = subscription;
+        mSize++;
+        mSnapshot = null;
+    }
+
+    boolean remove(@NonNull Subscription<T> subscription) {
+        Bucket<T> bucket = subscription.bucket;
+        if (bucket == null) {
+            return false;
+        }
+        if (subscription.previous == null) {
+            bucket.head = subscription.next;
+        } else {
+            subscription.previous.next = subscription.next;
+        }
+        if (subscription.next == null) {
+            bucket.tail = subscription.previous;
+        } else {
+            subscription.next.previous = subscription.previous;
+        }
+        if (bucket.head == null) {
+            mBuckets.remove(subscription.priority);
+        }
+        subscription.bucket = null;
+        subscription.previous = null;
+        subscription.next = null;
+        mSize--;
+        mSnapshot = null;
+        return true;
+    }
+
+    /**
+     * 按分发顺序排列的订阅，分发过程中订阅变化不影响已经取出的数组
+     *
+     * @return 订阅数组
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    Subscription<T>[] snapshot() {
+        Subscription<T>[] snapshot = mSnapshot;
+        if (snapshot == null) {
+            snapshot = mSize == 0 ? (Subscription<T>[]) EMPTY : new Subscription[mSize];
+            int index = 0;
+            for (Map.Entry<Integer, Bucket<T>> entry : mBuckets.entrySet()) {
+                for (Subscription<T> s = entry.getValue().head; s != null; s = s.next) {
+                    snapshot[index++] = s;
+                }
+            }
+            mSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * ************************************************************
+ * 文件：Subscription.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:54:55
+ * 上次修改时间：2026年10月17日 21:31:33
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * 一次观察对应的订阅记录，同时是优先级分桶链表和生命周期拥有者链表中的节点
+ * <p>
+ * 取消订阅时直接从两个链表中断开，不需要查找
+ */
+final class Subscription<T> {
+    final ActiveLiveDataWrapper<T> bus;
+    final ObserverWrapper<T> observer;
+    @Nullable
+    final LifecycleOwner owner;
+    final int priority;
+    // 观察者在这个总线上的序号，只有在进入观察状态之后产生的数据才通知到观察者
+    final int sequence;
+    // 最后一次分发的值版本，避免重复分发
+    int lastVersion = ActiveLiveDataWrapper.START_VERSION;
+    boolean active;
+    // 所在的优先级桶和桶内链表
+    SubscriberList.Bucket<T> bucket;
+    Subscription<T> previous;
+    Subscription<T> next;
+    // 所在的生命周期拥有者分组和分组内链表
+    OwnerSubscriptions<T> group;
+    Subscription<T> ownerPrevious;
+    Subscription<T> ownerNext;
+
+    Subscription(@NonNull ActiveLiveDataWrapper<T> bus, @NonNull ObserverWrapper<T> observer,
+                 @Nullable LifecycleOwner owner, int sequence) {
+        this.bus = bus;
+        this.observer = observer;
+        this.owner = owner;
+        this.priority = observer.priority;
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return 是否还在订阅中
+     */
+    boolean isAttached() {
+        return bucket != null;
+    }
+
+    /**
+     * 取消订阅
+     */
+    @MainThread
+    void remove() {
+        bus.detach(this);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * ************************************************************
+ * 文件：TypeResolver.java  模块：ElegantBus.core.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:35:26
+ * 上次修改时间：2026年10月17日 21:57:45
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 事件类型解析
+ * <p>
+ * 1、类型名对应的类只加载一次，找不到的类型也记录下来，不会每条消息都去加载
+ * 2、跨进程时类型名用服务进程分配的编号代替，编号只在服务进程的一次运行中有效，
+ * 服务进程第一次收到某个类型时分配并推送给所有进程，还不知道编号的进程发送类型名，重新连接服务时清空
+ */
+final class TypeResolver {
+    // 找不到的类型
+    private static final Class<?> MISSING = Void.class;
+    private static final ConcurrentHashMap<String, Class<?>> sClasses = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Integer> sIds = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, String> sNames = new ConcurrentHashMap<>();
+    private static int sNextId;
+
+    private TypeResolver() {
+    }
+
+    /**
+     * 获取类型名对应的类
+     *
+     * @param type 类型名
+     * @return 类，当前进程没有这个类型时返回 null
+     */
+    @Nullable
+    static Class<?> classOf(@NonNull String type) {
+        Class<?> clazz = sClasses.get(type);
+        if (clazz == null) {
+            try {
+                clazz = Class.forName(type);
+            } catch (ClassNotFoundException e) {
+                ElegantLog.e("Event type " + type + " is not found in " + ElegantUtil.getProcessName());
+                clazz = MISSING;
+            }
+            sClasses.put(type, clazz);
+        }
+        return clazz == MISSING ? null : clazz;
+    }
+
+    /**
+     * @param type 类型名
+     * @return 类型编号，还没有分配时返回 0
+     */
+    static int idOf(@Nullable String type) {
+        if (type == null) {
+            return 0;
+        }
+        Integer id = sIds.get(type);
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * @param id 类型编号
+     * @return 类型名，不知道这个编号时返回 null
+     */
+    @Nullable
+    static String nameOf(int id) {
+        return id == 0 ? null : sNames.get(id);
+    }
+
+    /**
+     * 服务进程分配类型编号，同一个类型名只分配一次
+     *
+     * @param type 类型名
+     * @return 类型编号
+     */
+    static synchronized int assign(@NonNull String type) {
+        int id = idOf(type);
+        if (id == 0) {
+            id = ++sNextId;
+            sNames.put(id, type);
+            sIds.put(type, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return 已经分配的全部编号，新进程注册时一次推送
+     */
+    @NonNull
+    static Map<Integer, String> names() {
+        return new HashMap<>(sNames);
+    }
+
+    /**
+     * 记录服务进程分配的类型编号
+     */
+    static void put(int id, @NonNull String type) {
+        if (id != 0) {
+            sNames.put(id, type);
+            sIds.put(type, id);
+        }
+    }
+
+    /**
+     * 服务进程重启后编号会重新分配，重新连接时清空
+     */
+    static void clearIds() {
+        sIds.clear();
+        sNames.clear();
+    }
+}
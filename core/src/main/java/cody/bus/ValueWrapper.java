@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ValueWrapper.java  模块：ElegantBus.core.main  项目：ElegantBus
- * 当前修改时间：2022年09月12日 17:58:58
- * 上次修改时间：2022年09月12日 17:47:29
+ * 当前修改时间：2026年10月17日 21:25:20
+ * 上次修改时间：2022年09月12日 17:58:58
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.core.main
- * Copyright (c) 2022
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -17,17 +17,27 @@ import androidx.annotation.NonNull;
 /**
  * Created by xu.yi. on 2019/3/31.
  * mutableLiveData 值包裹类
+ * 每个事件总线持有固定数量的值包裹类循环使用，发送事件时不再创建新的对象
  */
 final class ValueWrapper<T> {
     // 每个被观察的事件数据都有一个序号，只有产生的事件数据在观察者加入之后才通知到观察者
     // 即事件数据序号要大于观察者序号
-    final int sequence;
-    @NonNull
-    final
+    int sequence;
     T value;
 
-    ValueWrapper(@NonNull T value, int sequence) {
+    ValueWrapper() {
+    }
+
+    /**
+     * 复用之前更新值和序号
+     *
+     * @param value    值
+     * @param sequence 序号
+     * @return 当前包裹类
+     */
+    ValueWrapper<T> set(@NonNull T value, int sequence) {
         this.sequence = sequence;
         this.value = value;
+        return this;
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * ************************************************************
+ * 文件：BusFactoryTest.java  模块：ElegantBus.core  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 23:05:47
+ * 上次修改时间：2026年10月17日 23:05:47
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多个线程同时获取事件标识和事件总线，每个事件只有一个实例
+ */
+public class BusFactoryTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 200;
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void obtainReturnsOneKeyPerEvent() throws Exception {
+        final String group = "obtain" + System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            final String event = "event" + i;
+            assertAllSame(race(() -> EventKey.obtain(group, event, String.class, false)));
+        }
+    }
+
+    @Test
+    public void createReturnsOneBusPerEvent() throws Exception {
+        final String group = "create" + System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            final String event = "event" + i;
+            List<Object> buses = race(() -> BusFactory.ready().create(EventKey.obtain(group, event, String.class, false)));
+            assertAllSame(buses);
+            assertSame(buses.get(0), EventKey.obtain(group, event, String.class, false).bus);
+        }
+    }
+
+    @Test
+    public void declarationAdoptsRemoteKey() {
+        String group = "remote" + System.nanoTime();
+        EventKey<?> remote = EventKey.obtainRemote(group, "event", String.class.getName(), false);
+        EventKey<String> declared = EventKey.obtain(group, "event", String.class, true, true);
+        assertSame(remote, declared);
+        assertTrue(declared.multiProcess);
+        assertTrue(declared.conflate);
+    }
+
+    /**
+     * 所有线程同时开始执行
+     *
+     * @param task 任务
+     * @return 每个线程的结果
+     */
+    private List<Object> race(final Callable<Object> task) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(mExecutor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<Object> results = new ArrayList<>(THREADS);
+        for (Future<Object> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private static void assertAllSame(List<Object> results) {
+        for (Object result : results) {
+            assertSame(results.get(0), result);
+        }
+    }
+}
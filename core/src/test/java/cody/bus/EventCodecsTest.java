@@ -0,0 +1,111 @@
+/*
+ * ************************************************************
+ * 文件：EventCodecsTest.java  模块：ElegantBus.core  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 23:07:17
+ * 上次修改时间：2026年10月17日 23:07:01
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import cody.bus.codec.IndexedBusCodecs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 事件值编码之后解码得到相同的值，没有注册编解码器的类型使用 JSON
+ */
+public class EventCodecsTest {
+
+    public static final class Point {
+        final int x;
+        final int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public static final class Bean {
+        public String name;
+        public int count;
+    }
+
+    private static final class PointCodec implements EventCodec<Point> {
+        @Override
+        public void write(@NonNull EventOutput out, @NonNull Point value) {
+            out.writeInt(value.x).writeInt(value.y);
+        }
+
+        @Override
+        public Point read(@NonNull EventInput in) {
+            return new Point(in.readInt(), in.readInt());
+        }
+    }
+
+    private static Object roundTrip(Object value) {
+        return EventCodecs.decode(EventCodecs.encode(value), value.getClass().getName(), null);
+    }
+
+    @Test
+    public void builtInTypesRoundTrip() {
+        Object[] values = {"事件", 1, -2L, true, 3.5d, -4.5f, (byte) 5, (short) -6, 'c'};
+        for (Object value : values) {
+            assertEquals(value, roundTrip(value));
+        }
+        byte[] bytes = {1, 2, 3};
+        assertArrayEquals(bytes, (byte[]) roundTrip(bytes));
+    }
+
+    @Test
+    public void registeredCodecIsUsed() {
+        EventCodecs.register(Point.class, new PointCodec());
+        byte[] data = EventCodecs.encode(new Point(-1, 1000));
+        assertEquals(EventCodecs.FORMAT_CODEC, data[0]);
+        Point point = (Point) EventCodecs.decode(data, Point.class.getName(), null);
+        assertEquals(-1, point.x);
+        assertEquals(1000, point.y);
+    }
+
+    @Test
+    public void unregisteredTypeFallsBackToJson() {
+        Bean bean = new Bean();
+        bean.name = "json";
+        bean.count = 7;
+        byte[] data = EventCodecs.encode(bean);
+        assertEquals(EventCodecs.FORMAT_JSON, data[0]);
+        Bean decoded = (Bean) EventCodecs.decode(data, Bean.class.getName(), null);
+        assertEquals("json", decoded.name);
+        assertEquals(7, decoded.count);
+    }
+
+    @Test
+    public void generatedCodecsAreLoadedByGroup() {
+        // 接收进程没有加载过分组 Indexed 的事件总线类，解码时按分组名加载编解码器索引类
+        byte[] data = new EventOutput(4).writeByte(EventCodecs.FORMAT_CODEC).writeInt(42).toByteArray();
+        Object value = EventCodecs.decode(data, IndexedBusCodecs.Indexed.class.getName(), "Indexed");
+        assertEquals(42, ((IndexedBusCodecs.Indexed) value).value);
+    }
+
+    @Test
+    public void undecodableDataIsDropped() {
+        assertNull(EventCodecs.decode(null, String.class.getName(), null));
+        assertNull(EventCodecs.decode(new byte[0], String.class.getName(), null));
+        // 接收进程没有这个类型的编解码器
+        byte[] data = {EventCodecs.FORMAT_CODEC, 2, 4};
+        assertNull(EventCodecs.decode(data, "cody.bus.MissingType", "missing"));
+        // 未知的编码方式
+        assertNull(EventCodecs.decode(new byte[]{127}, String.class.getName(), null));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * ************************************************************
+ * 文件：EventOutputTest.java  模块：ElegantBus.core  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 23:07:01
+ * 上次修改时间：2026年10月17日 23:07:01
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 二进制编码写入和读取一致
+ */
+public class EventOutputTest {
+
+    @Test
+    public void roundTripsEveryType() {
+        byte[] bytes = {0, 1, -1, 127, -128};
+        byte[] data = new EventOutput(0)
+                .writeByte(-7)
+                .writeBoolean(true)
+                .writeBoolean(false)
+                .writeShort(Short.MIN_VALUE)
+                .writeChar('中')
+                .writeInt(0)
+                .writeInt(-1)
+                .writeInt(Integer.MAX_VALUE)
+                .writeInt(Integer.MIN_VALUE)
+                .writeLong(Long.MIN_VALUE)
+                .writeLong(300L)
+                .writeFloat(-1.5f)
+                .writeDouble(Math.PI)
+                .writeString("ElegantBus 事件")
+                .writeString("")
+                .writeString(null)
+                .writeBytes(bytes)
+                .writeBytes(null)
+                .toByteArray();
+        EventInput in = new EventInput(data, 0);
+        assertEquals(-7, in.readByte());
+        assertTrue(in.readBoolean());
+        assertFalse(in.readBoolean());
+        assertEquals(Short.MIN_VALUE, in.readShort());
+        assertEquals('中', in.readChar());
+        assertEquals(0, in.readInt());
+        assertEquals(-1, in.readInt());
+        assertEquals(Integer.MAX_VALUE, in.readInt());
+        assertEquals(Integer.MIN_VALUE, in.readInt());
+        assertEquals(Long.MIN_VALUE, in.readLong());
+        assertEquals(300L, in.readLong());
+        assertEquals(-1.5f, in.readFloat(), 0f);
+        assertEquals(Math.PI, in.readDouble(), 0d);
+        assertEquals("ElegantBus 事件", in.readString());
+        assertEquals("", in.readString());
+        assertNull(in.readString());
+        assertArrayEquals(bytes, in.readBytes());
+        assertNull(in.readBytes());
+        assertEquals(0, in.readRemaining().length);
+    }
+
+    @Test
+    public void smallNumbersTakeOneByte() {
+        assertEquals(1, new EventOutput(0).writeInt(-64).toByteArray().length);
+        assertEquals(1, new EventOutput(0).writeLong(63).toByteArray().length);
+        assertEquals(5, new EventOutput(0).writeInt(Integer.MIN_VALUE).toByteArray().length);
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        byte[] large = new byte[1000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) i;
+        }
+        byte[] data = new EventOutput(1).writeBytes(large).writeInt(42).toByteArray();
+        EventInput in = new EventInput(data, 0);
+        assertArrayEquals(large, in.readBytes());
+        assertEquals(42, in.readInt());
+    }
+
+    @Test
+    public void truncatedDataIsRejected() {
+        byte[] data = new EventOutput(0).writeString("truncated").toByteArray();
+        byte[] truncated = new byte[data.length - 1];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        try {
+            new EventInput(truncated, 0).readString();
+            fail("truncated data should not be read");
+        } catch (IllegalStateException expected) {
+            // 数据不完整时不读越界
+        }
+    }
+}
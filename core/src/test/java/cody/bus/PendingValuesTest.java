@@ -0,0 +1,85 @@
+/*
+ * ************************************************************
+ * 文件：PendingValuesTest.java  模块：ElegantBus.core  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 23:06:07
+ * 上次修改时间：2026年10月17日 23:06:07
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 其他线程发送到主线程的值按顺序取出，只安排一次分发，合并模式只保留队尾最新值
+ */
+public class PendingValuesTest {
+
+    @Test
+    public void schedulesOnceUntilDrained() {
+        PendingValues<String> values = new PendingValues<>(false);
+        ValueWrapper<String> polled = new ValueWrapper<>();
+        assertEquals(PendingValues.SCHEDULE, values.offer("a", false));
+        assertEquals(PendingValues.QUEUED, values.offer("b", false));
+        assertTrue(values.poll(polled));
+        assertTrue(values.poll(polled));
+        assertFalse(values.poll(polled));
+        assertTrue(values.isEmpty());
+        // 取空之后取消了安排，下次添加重新安排
+        assertEquals(PendingValues.SCHEDULE, values.offer("c", false));
+    }
+
+    @Test
+    public void keepsOrderWhenWrappingAndGrowing() {
+        PendingValues<Integer> values = new PendingValues<>(false);
+        ValueWrapper<Integer> polled = new ValueWrapper<>();
+        int next = 0;
+        int expected = 0;
+        // 先让队头移动到数组中间，再添加超过容量的值，扩容时需要按顺序展开
+        for (int i = 0; i < 10; i++) {
+            values.offer(next++, false);
+        }
+        for (int i = 0; i < 6; i++) {
+            assertTrue(values.poll(polled));
+            assertEquals(Integer.valueOf(expected++), polled.value);
+        }
+        for (int i = 0; i < 100; i++) {
+            values.offer(next, next % 3 == 0);
+            next++;
+        }
+        while (values.poll(polled)) {
+            assertEquals(Integer.valueOf(expected), polled.value);
+            int sticky = expected >= 10 && expected % 3 == 0 ? PendingValues.STICKY : PendingValues.NORMAL;
+            assertEquals(sticky, polled.sequence);
+            expected++;
+        }
+        assertEquals(next, expected);
+    }
+
+    @Test
+    public void conflateReplacesTailOfSameKind() {
+        PendingValues<String> values = new PendingValues<>(true);
+        ValueWrapper<String> polled = new ValueWrapper<>();
+        assertEquals(PendingValues.SCHEDULE, values.offer("a", false));
+        assertEquals(PendingValues.CONFLATED, values.offer("b", false));
+        // 粘性值不会覆盖普通值
+        assertEquals(PendingValues.QUEUED, values.offer("c", true));
+        assertEquals(PendingValues.CONFLATED, values.offer("d", true));
+        assertEquals(2, values.conflatedCount());
+        assertTrue(values.poll(polled));
+        assertEquals("b", polled.value);
+        assertEquals(PendingValues.NORMAL, polled.sequence);
+        assertTrue(values.poll(polled));
+        assertEquals("d", polled.value);
+        assertEquals(PendingValues.STICKY, polled.sequence);
+        assertFalse(values.poll(polled));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * ************************************************************
+ * 文件：ReorderBufferTest.java  模块：ElegantBus.core  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 23:08:20
+ * 上次修改时间：2026年10月17日 23:08:20
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * 跨进程收到的事件按序号分发，缺少的序号等待超时、被服务进程跳过或者发送进程结束时不再等待
+ * <p>
+ * 当前进程没有这个事件总线，分发的值保留在事件标识中，检查最后分发的是哪个序号
+ */
+public class ReorderBufferTest {
+    private static final String TYPE = String.class.getName();
+    private static final AtomicInteger sOrigin = new AtomicInteger(1000);
+    private int mOrigin;
+    private String mGroup;
+    private EventKey<?> mEventKey;
+
+    @Before
+    public void setUp() {
+        mOrigin = sOrigin.incrementAndGet();
+        mGroup = "reorder" + mOrigin;
+        mEventKey = EventKey.obtainRemote(mGroup, "event", TYPE, true);
+    }
+
+    private void offer(long seq, int what) {
+        EventWrapper eventWrapper = new EventWrapper("sender", mGroup, "event", TYPE, data(seq), true);
+        eventWrapper.origin = mOrigin;
+        eventWrapper.seq = seq;
+        ReorderBuffer.offer(eventWrapper, what);
+    }
+
+    private static byte[] data(long seq) {
+        return new byte[]{(byte) seq};
+    }
+
+    private void assertLastDelivered(long seq) {
+        assertArrayEquals(data(seq), mEventKey.raw.get());
+    }
+
+    @Test
+    public void holdsLaterEventUntilGapIsFilled() {
+        offer(1, MultiProcess.MSG_ON_POST);
+        offer(3, MultiProcess.MSG_ON_POST);
+        assertLastDelivered(1);
+        offer(2, MultiProcess.MSG_ON_POST);
+        // 2 先分发，再分发保留的 3
+        assertLastDelivered(3);
+    }
+
+    @Test
+    public void dropsRepeatedOrOlderEvent() {
+        offer(1, MultiProcess.MSG_ON_POST);
+        offer(2, MultiProcess.MSG_ON_POST);
+        offer(1, MultiProcess.MSG_ON_POST);
+        offer(2, MultiProcess.MSG_ON_POST_STICKY);
+        assertLastDelivered(2);
+    }
+
+    @Test
+    public void skipMarkerReleasesHeldEvents() {
+        offer(1, MultiProcess.MSG_ON_POST);
+        offer(3, MultiProcess.MSG_ON_POST);
+        offer(4, MultiProcess.MSG_ON_POST);
+        assertLastDelivered(1);
+        // 服务进程丢弃了 2，不再等待
+        offer(2, MultiProcess.MSG_ON_SKIP);
+        assertLastDelivered(4);
+    }
+
+    @Test
+    public void stickyEventIsNotHeld() {
+        offer(1, MultiProcess.MSG_ON_POST);
+        offer(5, MultiProcess.MSG_ON_POST_STICKY);
+        assertLastDelivered(5);
+    }
+
+    @Test
+    public void gapIsSkippedAfterTimeout() throws InterruptedException {
+        offer(1, MultiProcess.MSG_ON_POST);
+        offer(3, MultiProcess.MSG_ON_POST);
+        assertLastDelivered(1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mEventKey.raw.get()[0] != 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertLastDelivered(3);
+    }
+
+    @Test
+    public void goneProcessIsNotHeld() {
+        ReorderBuffer.evict(mOrigin);
+        offer(1, MultiProcess.MSG_ON_POST);
+        offer(3, MultiProcess.MSG_ON_POST);
+        assertLastDelivered(3);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * ************************************************************
+ * 文件：SubscriberListTest.java  模块：ElegantBus.core  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 23:06:25
+ * 上次修改时间：2026年10月17日 23:06:13
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 订阅列表的分发顺序、移除和分发数组复用
+ */
+public class SubscriberListTest {
+    private final ActiveLiveDataWrapper<String> mBus = new ActiveLiveDataWrapper<>();
+
+    private Subscription<String> subscribe(SubscriberList<String> list) {
+        return subscribe(list, 0);
+    }
+
+    private Subscription<String> subscribe(SubscriberList<String> list, int priority) {
+        Subscription<String> subscription = new Subscription<>(mBus, new ObserverWrapper<String>(priority) {
+            @Override
+            public void onChanged(@Nullable String value) {
+            }
+        }, null, 0);
+        list.add(subscription);
+        return subscription;
+    }
+
+    @Test
+    public void dispatchesInSubscribeOrder() {
+        SubscriberList<String> list = new SubscriberList<>();
+        Subscription<String> first = subscribe(list);
+        Subscription<String> second = subscribe(list);
+        Subscription<String> third = subscribe(list);
+        assertEquals(3, list.size());
+        assertArrayEquals(new Object[]{first, second, third}, list.snapshot());
+    }
+
+    @Test
+    public void removeDetachesOnlyOnce() {
+        SubscriberList<String> list = new SubscriberList<>();
+        Subscription<String> first = subscribe(list);
+        Subscription<String> second = subscribe(list);
+        Subscription<String> third = subscribe(list);
+        assertTrue(list.remove(second));
+        assertFalse(second.isAttached());
+        assertFalse(list.remove(second));
+        assertEquals(2, list.size());
+        assertArrayEquals(new Object[]{first, third}, list.snapshot());
+        assertTrue(list.remove(first));
+        assertTrue(list.remove(third));
+        assertEquals(0, list.snapshot().length);
+    }
+
+    @Test
+    public void higherPriorityDispatchesFirst() {
+        SubscriberList<String> list = new SubscriberList<>();
+        Subscription<String> low = subscribe(list, -1);
+        Subscription<String> normal = subscribe(list, 0);
+        Subscription<String> high = subscribe(list, 10);
+        Subscription<String> secondHigh = subscribe(list, 10);
+        Subscription<String> secondNormal = subscribe(list, 0);
+        // 优先级从高到低，相同优先级按订阅顺序
+        assertArrayEquals(new Object[]{high, secondHigh, normal, secondNormal, low}, list.snapshot());
+    }
+
+    @Test
+    public void emptyPriorityIsRemovedAndReused() {
+        SubscriberList<String> list = new SubscriberList<>();
+        Subscription<String> normal = subscribe(list, 0);
+        Subscription<String> high = subscribe(list, 5);
+        assertTrue(list.remove(high));
+        assertArrayEquals(new Object[]{normal}, list.snapshot());
+        Subscription<String> again = subscribe(list, 5);
+        assertArrayEquals(new Object[]{again, normal}, list.snapshot());
+    }
+
+    @Test
+    public void snapshotIsReusedUntilChanged() {
+        SubscriberList<String> list = new SubscriberList<>();
+        Subscription<String> first = subscribe(list);
+        Subscription<?>[] snapshot = list.snapshot();
+        assertSame(snapshot, list.snapshot());
+        Subscription<String> second = subscribe(list);
+        Subscription<?>[] changed = list.snapshot();
+        assertNotSame(snapshot, changed);
+        // 分发中已经取出的数组不受之后的订阅变化影响
+        assertArrayEquals(new Object[]{first}, snapshot);
+        assertArrayEquals(new Object[]{first, second}, changed);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * ************************************************************
+ * 文件：IndexedBusCodecs.java  模块：ElegantBus.core  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 23:07:17
+ * 上次修改时间：2026年10月17日 23:07:17
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.core
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus.codec;
+
+import androidx.annotation.NonNull;
+
+import cody.bus.ElegantBus;
+import cody.bus.EventCodec;
+import cody.bus.EventInput;
+import cody.bus.EventOutput;
+
+/**
+ * 和注解处理器为分组 Indexed 生成的编解码器索引类一样，类加载时注册
+ */
+public final class IndexedBusCodecs {
+    public static final class Indexed {
+        public int value;
+    }
+
+    private static final class IndexedCodec implements EventCodec<Indexed> {
+        @Override
+        public void write(@NonNull EventOutput out, @NonNull Indexed value) {
+            out.writeInt(value.value);
+        }
+
+        @Override
+        public Indexed read(@NonNull EventInput in) {
+            Indexed indexed = new Indexed();
+            indexed.value = in.readInt();
+            return indexed;
+        }
+    }
+
+    static {
+        ElegantBus.registerCodec(Indexed.class, new IndexedCodec());
+    }
+
+    private IndexedBusCodecs() {
+    }
+
+    public static void register() {
+    }
+}
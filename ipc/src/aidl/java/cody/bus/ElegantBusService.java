@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ElegantBusService.java  模块：ElegantBus.ipc  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 10:33:34
+ * 当前修改时间：2026年10月17日 22:02:05
+ * 上次修改时间：2023年06月06日 11:07:31
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -14,7 +14,6 @@ package cody.bus;
 
 import android.app.Service;
 import android.content.Intent;
-import android.os.Binder;
 import android.os.IBinder;
 
 import cody.bus.db.EventDataBase;
@@ -25,7 +24,7 @@ import cody.bus.db.EventDataBase;
  */
 public class ElegantBusService extends Service {
 
-    private final Binder mBinder = new ProcessManager();
+    private final ProcessManager mBinder = new ProcessManager();
 
     @Override
     public void onCreate() {
@@ -33,6 +32,12 @@ public class ElegantBusService extends Service {
         EventDataBase.init(this, ElegantUtil.getHostPackageName(this));
     }
 
+    @Override
+    public void onDestroy() {
+        mBinder.onDestroy();
+        super.onDestroy();
+    }
+
     @Override
     public IBinder onBind(Intent intent) {
         return mBinder;
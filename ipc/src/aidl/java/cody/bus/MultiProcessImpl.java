@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：MultiProcessImpl.java  模块：ElegantBus.ipc  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 10:33:35
+ * 当前修改时间：2026年10月17日 23:03:23
+ * 上次修改时间：2026年10月17日 22:44:20
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -19,6 +19,11 @@ import android.content.ServiceConnection;
 import android.os.IBinder;
 import android.os.RemoteException;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import cody.bus.db.EventDataBase;
 
 /**
@@ -29,6 +34,45 @@ public class MultiProcessImpl extends IProcessCallback.Stub implements MultiProc
     private String mPkgName;
     private Context mContext;
     private IProcessManager mProcessManager;
+    // 当前进程有观察者的事件，重新连接服务时需要重新订阅
+    private final Set<String> mInterests = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // 服务进程分配的当前进程编号，发送的事件带上编号，服务进程转发时跳过自己
+    private volatile int mProcessId;
+    // 上次同步粘性事件到的版本，重新连接服务时只同步之后的修改，只在跨进程编解码线程中使用
+    private long mStickyVersion;
+    private final EventBatcher mEventBatcher = new EventBatcher(batch -> {
+        try {
+            send(batch);
+        } finally {
+            SharedPayload.release(batch);
+        }
+    });
+
+    // 在事件的解码线程中查询类型名、从共享内存读出数据，不占用跨进程编解码线程
+    private final ElegantUtil.Preparer mPreparer = eventWrapper -> {
+        resolveType(eventWrapper);
+        return SharedPayload.restore(eventWrapper);
+    };
+
+    // 没有其他进程观察的事件不编码也不发送，只延迟发送最新值
+    private final InterestFilter mInterestFilter = new InterestFilter((eventWrapper, value, deferred) -> {
+        EventWrapper encoded = ElegantUtil.encode(eventWrapper, value);
+        encoded.deferred = deferred;
+        mEventBatcher.add(SharedPayload.share(encoded));
+    });
+
+    private void send(List<EventWrapper> batch) throws RemoteException {
+        if (isBound()) {
+            for (EventWrapper eventWrapper : batch) {
+                eventWrapper.origin = mProcessId;
+            }
+            if (batch.size() == 1) {
+                mProcessManager.postToProcessManager(batch.get(0));
+            } else {
+                mProcessManager.postBatchToProcessManager(batch);
+            }
+        }
+    }
 
     MultiProcessImpl() {
     }
@@ -60,24 +104,56 @@ public class MultiProcessImpl extends IProcessCallback.Stub implements MultiProc
 
     @Override
     public <T> void postToProcessManager(EventWrapper eventWrapper, T value) {
-        try {
-            if (isBound()) {
-                mProcessManager.postToProcessManager(ElegantUtil.encode(eventWrapper, value));
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        mInterestFilter.post(eventWrapper, value);
     }
 
     @Override
     public void resetSticky(final EventWrapper eventWrapper) {
-        try {
-            if (isBound()) {
-                mProcessManager.resetSticky(eventWrapper);
+        mInterestFilter.drop(eventWrapper.getKey());
+        // 之前发送的事件先发出去
+        mEventBatcher.flush();
+        BusFactory.ready().executeIo(() -> {
+            try {
+                if (isBound()) {
+                    eventWrapper.origin = mProcessId;
+                    mProcessManager.resetSticky(eventWrapper);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        });
+    }
+
+    @Override
+    public void subscribe(final EventWrapper eventWrapper) {
+        final String key = eventWrapper.getKey();
+        mInterests.add(key);
+        // 没有观察期间服务进程不转发这个事件，之后收到的序号不连续，不需要等待
+        ReorderBuffer.reset(eventWrapper);
+        BusFactory.ready().executeIo(() -> {
+            try {
+                if (isBound()) {
+                    mProcessManager.subscribe(MultiProcessImpl.this, key);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    @Override
+    public void unsubscribe(final EventWrapper eventWrapper) {
+        final String key = eventWrapper.getKey();
+        mInterests.remove(key);
+        BusFactory.ready().executeIo(() -> {
+            try {
+                if (isBound()) {
+                    mProcessManager.unsubscribe(MultiProcessImpl.this, key);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
     }
 
     @Override
@@ -87,11 +163,128 @@ public class MultiProcessImpl extends IProcessCallback.Stub implements MultiProc
 
     @Override
     public void call(final EventWrapper eventWrapper, final int what) {
+        ElegantUtil.receive(eventWrapper, what, mPreparer);
+    }
+
+    @Override
+    public void callBatch(final List<EventWrapper> eventWrappers, final int what) {
+        if (eventWrappers == null) return;
+        for (EventWrapper eventWrapper : eventWrappers) {
+            ElegantUtil.receive(eventWrapper, what, mPreparer);
+        }
+    }
+
+    /**
+     * 在 Binder 线程中直接记录，之后同一个服务进程发来的事件解析时已经可以使用编号
+     */
+    @Override
+    public void onTypes(final int[] typeIds, final String[] types) {
+        if (typeIds == null || types == null) return;
+        for (int i = 0; i < typeIds.length && i < types.length; i++) {
+            if (types[i] != null) {
+                TypeResolver.put(typeIds[i], types[i]);
+            }
+        }
+    }
+
+    @Override
+    public void onProcessGone(final int origin) {
+        ReorderBuffer.evict(origin);
+    }
+
+    @Override
+    public void onInterest(final long[] bits) {
+        mInterestFilter.onInterestChanged(bits);
+    }
+
+    @Override
+    public void callPacked(final byte[] packed, final int what) {
+        if (packed == null) return;
+        callBatch(PackedEvents.unpack(packed), what);
+    }
+
+    @Override
+    public void onStickyPage(final StickyPage page) {
+        if (page == null) return;
         BusFactory.ready().getSingleExecutorService().execute(() -> {
-            ElegantUtil.decode(eventWrapper, what);
+            for (EventWrapper eventWrapper : page.resets) {
+                ElegantUtil.receive(eventWrapper, MSG_ON_RESET_STICKY, mPreparer);
+            }
+            for (EventWrapper eventWrapper : page.events) {
+                ElegantUtil.receive(eventWrapper, MSG_ON_POST_STICKY, mPreparer);
+            }
+            mStickyVersion = page.version;
+            if (page.more) {
+                requestStickyPage();
+            } else {
+                subscribeInterests();
+            }
         });
     }
 
+    /**
+     * 注册之后分页拉取粘性事件，再重新发送连接之前或者服务重启之前的订阅
+     * 先同步再订阅，订阅时服务进程只补发同步之后的修改，不会重复发送
+     * 重新连接时只拉取上次同步之后的修改和重置
+     */
+    private void syncSticky() {
+        if (ElegantUtil.isServiceProcess(processName())) {
+            subscribeInterests();
+        } else {
+            requestStickyPage();
+        }
+    }
+
+    /**
+     * 请求下一页粘性事件，服务进程通过 {@link #onStickyPage(StickyPage)} 回调，不阻塞当前线程
+     */
+    private void requestStickyPage() {
+        IProcessManager processManager = mProcessManager;
+        if (processManager == null) {
+            return;
+        }
+        try {
+            processManager.requestStickyPage(this, StickyPage.getSyncGroups(), mStickyVersion);
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void subscribeInterests() {
+        IProcessManager processManager = mProcessManager;
+        if (processManager == null) {
+            return;
+        }
+        try {
+            for (String key : mInterests) {
+                processManager.subscribe(this, key);
+            }
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 服务进程在转发事件之前推送编号，这里只处理连接时序导致错过推送的少数情况，向服务进程查询类型名
+     */
+    private void resolveType(EventWrapper eventWrapper) {
+        if (eventWrapper.type != null) {
+            return;
+        }
+        String type = TypeResolver.nameOf(eventWrapper.typeId);
+        if (type == null && isBound()) {
+            try {
+                type = mProcessManager.getTypeName(eventWrapper.typeId);
+                if (type != null) {
+                    TypeResolver.put(eventWrapper.typeId, type);
+                }
+            } catch (RemoteException e) {
+                e.printStackTrace();
+            }
+        }
+        eventWrapper.type = type;
+    }
+
     @Override
     public boolean isBound() {
         if (mContext == null) {
@@ -151,13 +344,24 @@ public class MultiProcessImpl extends IProcessCallback.Stub implements MultiProc
 
         @Override
         public void onServiceConnected(ComponentName name, IBinder service) {
-            mProcessManager = IProcessManager.Stub.asInterface(service);
-            if (mProcessManager == null) {
+            IProcessManager processManager = IProcessManager.Stub.asInterface(service);
+            if (processManager == null) {
                 return;
             }
+            // 先清空上次连接的状态再让其他线程使用新的连接，避免用旧的编号发送
+            // 服务进程重启后类型编号重新分配，服务进程自己的编号表不能清空
+            if (!ElegantUtil.isServiceProcess(processName())) {
+                TypeResolver.clearIds();
+            }
+            // 服务进程重启后发送进程编号重新分配，之前的序号不再有效
+            ReorderBuffer.clear();
+            // 服务进程推送新的位图之前全部发送
+            mInterestFilter.onInterestChanged(null);
+            mProcessManager = processManager;
             try {
                 service.linkToDeath(mDeathRecipient, 0);
-                mProcessManager.register(MultiProcessImpl.this);
+                mProcessId = processManager.register(MultiProcessImpl.this);
+                BusFactory.ready().getSingleExecutorService().execute(MultiProcessImpl.this::syncSticky);
             } catch (RemoteException e) {
                 e.printStackTrace();
             }
@@ -1,30 +1,48 @@
 /*
  * ************************************************************
  * 文件：ProcessManager.java  模块：ElegantBus.ipc  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 10:40:09
+ * 当前修改时间：2026年10月17日 23:03:23
+ * 上次修改时间：2026年10月17日 22:56:51
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
 package cody.bus;
 
+import android.os.Binder;
+import android.os.IBinder;
 import android.os.RemoteCallbackList;
 import android.os.RemoteException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-
-import cody.bus.db.EventBean;
-import cody.bus.db.EventDataBase;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 多进程共享一个实例
+ * 发往每个进程的事件先进入各自的待发送队列，使用 oneway 调用发送，某个进程处理慢不会阻塞其他进程
+ * 普通事件只转发给观察了这个事件的进程
+ * 新进程注册后主动分页拉取粘性事件，见 {@link #requestStickyPage(IProcessCallback, List, long)}
  */
 public class ProcessManager extends IProcessManager.Stub {
-    private final RemoteCallbackList<IProcessCallback> mRemoteCallbackList = new RemoteCallbackList<>();
+    private final RemoteCallbackList<IProcessCallback> mRemoteCallbackList = new RemoteCallbackList<IProcessCallback>() {
+        @Override
+        public void onCallbackDied(IProcessCallback callback, Object cookie) {
+            removeOutbox(callback);
+        }
+    };
+    // 进程回调 -> 发往这个进程的待发送队列
+    private final ConcurrentHashMap<IBinder, ProcessOutbox> mOutboxes = new ConcurrentHashMap<>();
+    // 每个进程观察的事件，只在跨进程编解码线程中使用
+    private final InterestIndex mInterestIndex = new InterestIndex();
+    // 粘性事件缓存，异步写入数据库
+    private final StickyCache mStickyCache = new StickyCache();
 
     public static MultiProcess ready() {
         if (BusFactory.getDelegate() == null) {
@@ -37,35 +55,220 @@ public class ProcessManager extends IProcessManager.Stub {
         ElegantLog.d("ProcessManager is initialized.");
     }
 
+    /**
+     * 服务销毁时把还没有写入的粘性事件写入数据库
+     */
+    void onDestroy() {
+        mStickyCache.flush();
+    }
+
+    /**
+     * 注册进程，进程信息只在注册时获取一次，转发事件时不再调用对方进程
+     *
+     * @param callback 进程回调
+     * @return 服务进程分配的进程编号，发送事件时写入 origin
+     */
     @Override
-    public void register(IProcessCallback callback) throws RemoteException {
-        mRemoteCallbackList.register(callback);
-        if (!ElegantUtil.isServiceProcess(callback.processName())) {
-            postStickyValueToNewProcess(callback);
-        }
+    public int register(IProcessCallback callback) throws RemoteException {
+        String processName = callback.processName();
+        ProcessRecord process = new ProcessRecord(processName, Binder.getCallingPid(), Binder.getCallingUid());
+        ProcessOutbox outbox = new ProcessOutbox(process, (eventWrappers, what) -> {
+            byte[] packed = PackedEvents.pack(eventWrappers);
+            if (packed != null) {
+                callback.callPacked(packed, what);
+            } else if (eventWrappers.size() == 1) {
+                callback.call(eventWrappers.get(0), what);
+            } else {
+                callback.callBatch(eventWrappers, what);
+            }
+        });
+        final IBinder binder = callback.asBinder();
+        final boolean serviceProcess = ElegantUtil.isServiceProcess(processName);
+        mRemoteCallbackList.register(callback, processName);
+        // 类型编号只在转发事件的线程中分配，快照、推送和加入转发列表在同一个线程中完成，之间分配的编号不会遗漏
+        BusFactory.ready().getSingleExecutorService().execute(() -> {
+            // 先推送已经分配的类型编号，之后发往这个进程的事件只带编号
+            offerTypes(outbox, callback, TypeResolver.names());
+            ProcessOutbox old = mOutboxes.put(binder, outbox);
+            if (old != null) {
+                retireOutbox(old);
+            }
+            if (serviceProcess) {
+                markStickyDelivered(outbox);
+            }
+            mInterestIndex.add(outbox);
+            pushInterest();
+        });
+        ElegantLog.d("Process registered : " + process);
+        return process.id;
     }
 
     @Override
     public void unregister(IProcessCallback callback) {
         mRemoteCallbackList.unregister(callback);
+        removeOutbox(callback);
     }
 
     @Override
     public void resetSticky(final EventWrapper eventWrapper) {
         BusFactory.ready().getSingleExecutorService().execute(() -> {
+            assignTypeIds(Collections.singletonList(eventWrapper));
             removeEventFromCache(eventWrapper);
-            callbackToOtherProcess(eventWrapper, MultiProcess.MSG_ON_RESET_STICKY);
+            callbackToOtherProcess(Collections.singletonList(eventWrapper), MultiProcess.MSG_ON_RESET_STICKY);
         });
     }
 
     @Override
     public void postToProcessManager(final EventWrapper eventWrapper) {
         BusFactory.ready().getSingleExecutorService().execute(() -> {
+            assignTypeIds(Collections.singletonList(eventWrapper));
             putEventToCache(eventWrapper);
-            callbackToOtherProcess(eventWrapper, MultiProcess.MSG_ON_POST);
+            forwardPosts(Collections.singletonList(eventWrapper));
         });
     }
 
+    @Override
+    public void postBatchToProcessManager(final List<EventWrapper> eventWrappers) {
+        if (eventWrappers == null || eventWrappers.isEmpty()) return;
+        BusFactory.ready().getSingleExecutorService().execute(() -> {
+            assignTypeIds(eventWrappers);
+            for (EventWrapper eventWrapper : eventWrappers) {
+                putEventToCache(eventWrapper);
+            }
+            forwardPosts(eventWrappers);
+        });
+    }
+
+    @Override
+    public void subscribe(final IProcessCallback callback, final String key) {
+        BusFactory.ready().getSingleExecutorService().execute(() -> {
+            ProcessOutbox outbox = mOutboxes.get(callback.asBinder());
+            if (outbox != null) {
+                if (mInterestIndex.subscribe(outbox, key)) {
+                    postStickyValueToProcess(outbox, key);
+                }
+                pushInterest();
+            }
+        });
+    }
+
+    @Override
+    public void unsubscribe(final IProcessCallback callback, final String key) {
+        BusFactory.ready().getSingleExecutorService().execute(() -> {
+            ProcessOutbox outbox = mOutboxes.get(callback.asBinder());
+            if (outbox != null) {
+                mInterestIndex.unsubscribe(outbox, key);
+                pushInterest();
+            }
+        });
+    }
+
+    @Override
+    public String getTypeName(final int typeId) {
+        return TypeResolver.nameOf(typeId);
+    }
+
+    /**
+     * 不占用 Binder 线程等待，分页在转发事件的线程中生成，通过进程的待发送队列回调，和之前转发的事件顺序一致
+     */
+    @Override
+    public void requestStickyPage(final IProcessCallback callback, final List<String> groups,
+                                  final long afterVersion) {
+        BusFactory.ready().getSingleExecutorService().execute(() -> {
+            ProcessOutbox outbox = mOutboxes.get(callback.asBinder());
+            if (outbox == null) {
+                return;
+            }
+            // 记录已经收到的版本，之后订阅时只补发同步之后的修改
+            final StickyPage page = mStickyCache.page(groups, mStickyCache.syncFrom(afterVersion));
+            mInterestIndex.markDelivered(outbox, page.keys());
+            ElegantLog.d("Sync sticky event to process : " + outbox.processName + ", size = " + page.events.size() +
+                    ", reset = " + page.resets.size());
+            outbox.offer(() -> callback.onStickyPage(page));
+        });
+    }
+
+    /**
+     * 和注册在同一个线程中移除，不会先于还没有执行的注册
+     *
+     * @param callback 进程回调
+     */
+    private void removeOutbox(IProcessCallback callback) {
+        final IBinder binder = callback.asBinder();
+        BusFactory.ready().getSingleExecutorService().execute(() -> {
+            ProcessOutbox outbox = mOutboxes.remove(binder);
+            if (outbox != null) {
+                retireOutbox(outbox);
+            }
+        });
+    }
+
+    /**
+     * 进程已经结束，通知其他进程移除它发送的事件序列，排在之前转发的事件后面
+     * 在转发事件的线程中调用
+     *
+     * @param outbox 结束的进程的待发送队列
+     */
+    private void retireOutbox(final ProcessOutbox outbox) {
+        outbox.close();
+        mInterestIndex.remove(outbox);
+        pushInterest();
+        final int origin = outbox.process.id;
+        for (Map.Entry<IBinder, ProcessOutbox> entry : mOutboxes.entrySet()) {
+            final IProcessCallback callback = IProcessCallback.Stub.asInterface(entry.getKey());
+            entry.getValue().offer(() -> callback.onProcessGone(origin));
+        }
+    }
+
+    /**
+     * 第一次收到某个类型时分配编号，在转发事件之前通过待发送队列推送给所有进程，进程收到事件时已经知道编号
+     *
+     * @param eventWrappers 收到的事件
+     */
+    private void assignTypeIds(List<EventWrapper> eventWrappers) {
+        Map<Integer, String> assigned = null;
+        for (EventWrapper eventWrapper : eventWrappers) {
+            if (eventWrapper.type != null && TypeResolver.idOf(eventWrapper.type) == 0) {
+                if (assigned == null) {
+                    assigned = new HashMap<>();
+                }
+                assigned.put(TypeResolver.assign(eventWrapper.type), eventWrapper.type);
+            }
+        }
+        if (assigned == null) return;
+        for (Map.Entry<IBinder, ProcessOutbox> entry : mOutboxes.entrySet()) {
+            offerTypes(entry.getValue(), IProcessCallback.Stub.asInterface(entry.getKey()), assigned);
+        }
+    }
+
+    private static void offerTypes(ProcessOutbox outbox, final IProcessCallback callback, Map<Integer, String> types) {
+        if (types.isEmpty()) return;
+        final int[] typeIds = new int[types.size()];
+        final String[] names = new String[types.size()];
+        int i = 0;
+        for (Map.Entry<Integer, String> entry : types.entrySet()) {
+            typeIds[i] = entry.getKey();
+            names[i++] = entry.getValue();
+        }
+        outbox.offer(() -> callback.onTypes(typeIds, names));
+    }
+
+    /**
+     * 订阅变化后把其他进程观察的事件位图推送给位图有变化的进程
+     * 和 onTypes 一样通过进程的待发送队列发送，不在转发线程中调用对方进程，失败时按队列策略重试
+     */
+    private void pushInterest() {
+        Map<ProcessOutbox, long[]> changes = mInterestIndex.interestChanges();
+        if (changes.isEmpty()) return;
+        for (Map.Entry<IBinder, ProcessOutbox> entry : mOutboxes.entrySet()) {
+            final long[] bits = changes.get(entry.getValue());
+            if (bits != null) {
+                final IProcessCallback callback = IProcessCallback.Stub.asInterface(entry.getKey());
+                entry.getValue().offer(() -> callback.onInterest(bits));
+            }
+        }
+    }
+
     /**
      * 服务进程收到事件先保留，作为其他进程的粘性事件缓存
      *
@@ -73,7 +276,7 @@ public class ProcessManager extends IProcessManager.Stub {
      */
     private void putEventToCache(final EventWrapper eventWrapper) {
         ElegantLog.d("Service receive event, add to cache, Event = " + eventWrapper.toString());
-        EventDataBase.getInstance().eventDao().insert(DataUtil.convert(eventWrapper));
+        mStickyCache.put(eventWrapper);
     }
 
     /**
@@ -83,51 +286,89 @@ public class ProcessManager extends IProcessManager.Stub {
      */
     private void removeEventFromCache(final EventWrapper eventWrapper) {
         ElegantLog.d("Service receive event, remove from cache, Event = " + eventWrapper.toString());
-        EventDataBase.getInstance().eventDao().delete(DataUtil.convert(eventWrapper));
+        mStickyCache.remove(eventWrapper);
     }
 
     /**
-     * 转发事件总线
+     * 转发进程发送的事件，延迟发送的值作为粘性事件转发，其他进程中之后才开始观察的普通观察者不会收到
+     * 按原来的顺序分段转发
      *
-     * @param eventWrapper 发送值
+     * @param eventWrappers 同一个进程发送的一批事件
      */
-    private void callbackToOtherProcess(EventWrapper eventWrapper, int what) {
-        int count = mRemoteCallbackList.beginBroadcast();
-        try {
-            for (int i = 0; i < count; i++) {
-                IProcessCallback callback = mRemoteCallbackList.getBroadcastItem(i);
-                if (callback == null) continue;
-                if (ElegantUtil.isSameProcess(callback.processName(), eventWrapper.processName)) {
-                    ElegantLog.d("This is in same process, already posted, Event = " + eventWrapper);
-                } else {
-                    ElegantLog.d("call back " + what + " to other process : " + callback.processName() + ", Event = " +
-                            eventWrapper);
-
-                    callback.call(eventWrapper, what);
-                }
+    private void forwardPosts(List<EventWrapper> eventWrappers) {
+        int start = 0;
+        for (int i = 1; i <= eventWrappers.size(); i++) {
+            boolean deferred = eventWrappers.get(start).deferred;
+            if (i < eventWrappers.size() && eventWrappers.get(i).deferred == deferred) {
+                continue;
             }
-        } catch (RemoteException e) {
-            e.printStackTrace();
+            List<EventWrapper> part = start == 0 && i == eventWrappers.size()
+                    ? eventWrappers : new ArrayList<>(eventWrappers.subList(start, i));
+            callbackToOtherProcess(part, deferred ? MultiProcess.MSG_ON_POST_STICKY : MultiProcess.MSG_ON_POST);
+            start = i;
         }
-        mRemoteCallbackList.finishBroadcast();
     }
 
     /**
-     * 转发 粘性事件到新的进程
+     * 转发事件总线，放入每个进程的待发送队列，只包含其他进程发送的事件
+     * 普通事件只发给观察了这个事件的进程，重置粘性事件发给所有进程
      *
-     * @param callback 进程回调
+     * @param eventWrappers 同一个进程发送的一批事件
+     * @param what          消息类型
      */
-    private void postStickyValueToNewProcess(final IProcessCallback callback) {
-        BusFactory.ready().getSingleExecutorService().execute(() -> {
-            try {
-                ElegantLog.d("Post all sticky event to new process : " + callback.processName());
-                List<EventBean> caches = EventDataBase.getInstance().eventDao().getAllList();
-                for (EventBean item : caches) {
-                    callback.call(DataUtil.convert(item), MultiProcess.MSG_ON_POST_STICKY);
-                }
-            } catch (RemoteException e) {
-                e.printStackTrace();
+    private void callbackToOtherProcess(List<EventWrapper> eventWrappers, int what) {
+        if (what == MultiProcess.MSG_ON_POST || what == MultiProcess.MSG_ON_POST_STICKY) {
+            Map<ProcessOutbox, List<EventWrapper>> routes = mInterestIndex.route(eventWrappers);
+            if (!routes.isEmpty()) {
+                // 只序列化一次，发往每个进程时共用
+                PackedEvents.prepare(eventWrappers);
             }
-        });
+            for (Map.Entry<ProcessOutbox, List<EventWrapper>> entry : routes.entrySet()) {
+                ElegantLog.d("call back " + what + " to other process : " + entry.getKey().processName +
+                        ", size = " + entry.getValue().size());
+                entry.getKey().offer(entry.getValue(), what);
+            }
+            return;
+        }
+        PackedEvents.prepare(eventWrappers);
+        for (ProcessOutbox outbox : mOutboxes.values()) {
+            List<EventWrapper> batch = DataUtil.filterOtherProcess(outbox.process, eventWrappers);
+            if (batch.isEmpty()) {
+                ElegantLog.d("This is in same process, already posted, size = " + eventWrappers.size());
+            } else {
+                ElegantLog.d("call back " + what + " to other process : " + outbox.processName +
+                        ", size = " + batch.size());
+                outbox.offer(batch, what);
+            }
+        }
+    }
+
+    /**
+     * 服务进程自己不需要粘性事件，记录为已经收到，订阅时不再补发
+     * 在转发事件的线程中调用
+     *
+     * @param outbox 服务进程的待发送队列
+     */
+    private void markStickyDelivered(final ProcessOutbox outbox) {
+        List<EventWrapper> eventWrappers = mStickyCache.all();
+        List<String> keys = new ArrayList<>(eventWrappers.size());
+        for (EventWrapper item : eventWrappers) {
+            keys.add(item.getKey());
+        }
+        mInterestIndex.markDelivered(outbox, keys);
+    }
+
+    /**
+     * 进程重新开始观察事件时，补发错过的最新值
+     *
+     * @param outbox 进程的待发送队列
+     * @param key    事件 key
+     */
+    private void postStickyValueToProcess(final ProcessOutbox outbox, final String key) {
+        EventWrapper eventWrapper = mStickyCache.get(key);
+        if (eventWrapper != null) {
+            ElegantLog.d("Post missed sticky event to process : " + outbox.processName + ", key = " + key);
+            outbox.offer(Collections.singletonList(eventWrapper), MultiProcess.MSG_ON_POST_STICKY);
+        }
     }
 }
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：IProcessCallback.java  模块：ElegantBus.ipc  项目：ElegantBus
- * 当前修改时间：2023年05月25日 12:34:48
- * 上次修改时间：2023年05月25日 12:31:15
+ * 当前修改时间：2026年10月17日 22:44:20
+ * 上次修改时间：2026年10月17日 22:35:26
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -18,6 +18,8 @@ import android.os.IInterface;
 import android.os.Parcel;
 import android.os.RemoteException;
 
+import java.util.List;
+
 public interface IProcessCallback extends IInterface {
     /**
      * Local-side IPC implementation stub class.
@@ -78,7 +80,53 @@ public interface IProcessCallback extends IInterface {
                     int what;
                     what = data.readInt();
                     this.call(eventWrapper, what);
-                    reply.writeNoException();
+                    return true;
+                }
+                case TRANSACTION_callBatch: {
+                    data.enforceInterface(descriptor);
+                    List<EventWrapper> eventWrappers = data.createTypedArrayList(EventWrapper.CREATOR);
+                    int what;
+                    what = data.readInt();
+                    this.callBatch(eventWrappers, what);
+                    return true;
+                }
+                case TRANSACTION_callPacked: {
+                    data.enforceInterface(descriptor);
+                    byte[] packed = data.createByteArray();
+                    int what;
+                    what = data.readInt();
+                    this.callPacked(packed, what);
+                    return true;
+                }
+                case TRANSACTION_onInterest: {
+                    data.enforceInterface(descriptor);
+                    long[] bits = data.createLongArray();
+                    this.onInterest(bits);
+                    return true;
+                }
+                case TRANSACTION_onStickyPage: {
+                    data.enforceInterface(descriptor);
+                    StickyPage page;
+                    if ((0 != data.readInt())) {
+                        page = StickyPage.CREATOR.createFromParcel(data);
+                    } else {
+                        page = null;
+                    }
+                    this.onStickyPage(page);
+                    return true;
+                }
+                case TRANSACTION_onTypes: {
+                    data.enforceInterface(descriptor);
+                    int[] typeIds = data.createIntArray();
+                    String[] types = data.createStringArray();
+                    this.onTypes(typeIds, types);
+                    return true;
+                }
+                case TRANSACTION_onProcessGone: {
+                    data.enforceInterface(descriptor);
+                    int origin;
+                    origin = data.readInt();
+                    this.onProcessGone(origin);
                     return true;
                 }
                 default: {
@@ -119,7 +167,6 @@ public interface IProcessCallback extends IInterface {
             @Override
             public void call(EventWrapper eventWrapper, int what) throws RemoteException {
                 Parcel _data = Parcel.obtain();
-                Parcel _reply = Parcel.obtain();
                 try {
                     _data.writeInterfaceToken(DESCRIPTOR);
                     if ((eventWrapper != null)) {
@@ -129,10 +176,88 @@ public interface IProcessCallback extends IInterface {
                         _data.writeInt(0);
                     }
                     _data.writeInt(what);
-                    mRemote.transact(Stub.TRANSACTION_call, _data, _reply, 0);
-                    _reply.readException();
+                    mRemote.transact(Stub.TRANSACTION_call, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
+            }
+
+            @Override
+            public void callBatch(List<EventWrapper> eventWrappers, int what) throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    _data.writeTypedList(eventWrappers);
+                    _data.writeInt(what);
+                    mRemote.transact(Stub.TRANSACTION_callBatch, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
+            }
+
+            @Override
+            public void callPacked(byte[] packed, int what) throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    _data.writeByteArray(packed);
+                    _data.writeInt(what);
+                    mRemote.transact(Stub.TRANSACTION_callPacked, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
+            }
+
+            @Override
+            public void onInterest(long[] bits) throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    _data.writeLongArray(bits);
+                    mRemote.transact(Stub.TRANSACTION_onInterest, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
+            }
+
+            @Override
+            public void onStickyPage(StickyPage page) throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    if ((page != null)) {
+                        _data.writeInt(1);
+                        page.writeToParcel(_data, 0);
+                    } else {
+                        _data.writeInt(0);
+                    }
+                    mRemote.transact(Stub.TRANSACTION_onStickyPage, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
+            }
+
+            @Override
+            public void onTypes(int[] typeIds, String[] types) throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    _data.writeIntArray(typeIds);
+                    _data.writeStringArray(types);
+                    mRemote.transact(Stub.TRANSACTION_onTypes, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
+            }
+
+            @Override
+            public void onProcessGone(int origin) throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    _data.writeInt(origin);
+                    mRemote.transact(Stub.TRANSACTION_onProcessGone, _data, null, IBinder.FLAG_ONEWAY);
                 } finally {
-                    _reply.recycle();
                     _data.recycle();
                 }
             }
@@ -140,9 +265,27 @@ public interface IProcessCallback extends IInterface {
 
         static final int TRANSACTION_processName = IBinder.FIRST_CALL_TRANSACTION;
         static final int TRANSACTION_call = IBinder.FIRST_CALL_TRANSACTION + 1;
+        static final int TRANSACTION_callBatch = IBinder.FIRST_CALL_TRANSACTION + 2;
+        static final int TRANSACTION_callPacked = IBinder.FIRST_CALL_TRANSACTION + 3;
+        static final int TRANSACTION_onInterest = IBinder.FIRST_CALL_TRANSACTION + 4;
+        static final int TRANSACTION_onStickyPage = IBinder.FIRST_CALL_TRANSACTION + 5;
+        static final int TRANSACTION_onTypes = IBinder.FIRST_CALL_TRANSACTION + 6;
+        static final int TRANSACTION_onProcessGone = IBinder.FIRST_CALL_TRANSACTION + 7;
     }
 
     String processName() throws RemoteException;
 
     void call(EventWrapper eventWrapper, int what) throws RemoteException;
+
+    void callBatch(List<EventWrapper> eventWrappers, int what) throws RemoteException;
+
+    void callPacked(byte[] packed, int what) throws RemoteException;
+
+    void onInterest(long[] bits) throws RemoteException;
+
+    void onStickyPage(StickyPage page) throws RemoteException;
+
+    void onTypes(int[] typeIds, String[] types) throws RemoteException;
+
+    void onProcessGone(int origin) throws RemoteException;
 }
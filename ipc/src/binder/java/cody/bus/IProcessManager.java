@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：IProcessManager.java  模块：ElegantBus.ipc  项目：ElegantBus
- * 当前修改时间：2023年06月01日 17:08:51
- * 上次修改时间：2023年06月01日 10:19:14
+ * 当前修改时间：2026年10月17日 22:35:26
+ * 上次修改时间：2026年10月17日 22:33:57
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -18,6 +18,8 @@ import android.os.IInterface;
 import android.os.Parcel;
 import android.os.RemoteException;
 
+import java.util.List;
+
 public interface IProcessManager extends IInterface {
     /**
      * Local-side IPC implementation stub class.
@@ -64,8 +66,9 @@ public interface IProcessManager extends IInterface {
                     data.enforceInterface(descriptor);
                     IProcessCallback callback;
                     callback = IProcessCallback.Stub.asInterface(data.readStrongBinder());
-                    this.register(callback);
+                    int result = this.register(callback);
                     reply.writeNoException();
+                    reply.writeInt(result);
                     return true;
                 }
                 case TRANSACTION_unregister: {
@@ -85,7 +88,6 @@ public interface IProcessManager extends IInterface {
                         eventWrapper = null;
                     }
                     this.resetSticky(eventWrapper);
-                    reply.writeNoException();
                     return true;
                 }
                 case TRANSACTION_postToService: {
@@ -97,7 +99,50 @@ public interface IProcessManager extends IInterface {
                         eventWrapper = null;
                     }
                     this.postToProcessManager(eventWrapper);
+                    return true;
+                }
+                case TRANSACTION_subscribe: {
+                    data.enforceInterface(descriptor);
+                    IProcessCallback callback;
+                    callback = IProcessCallback.Stub.asInterface(data.readStrongBinder());
+                    String key;
+                    key = data.readString();
+                    this.subscribe(callback, key);
+                    return true;
+                }
+                case TRANSACTION_unsubscribe: {
+                    data.enforceInterface(descriptor);
+                    IProcessCallback callback;
+                    callback = IProcessCallback.Stub.asInterface(data.readStrongBinder());
+                    String key;
+                    key = data.readString();
+                    this.unsubscribe(callback, key);
+                    return true;
+                }
+                case TRANSACTION_postBatchToService: {
+                    data.enforceInterface(descriptor);
+                    List<EventWrapper> eventWrappers = data.createTypedArrayList(EventWrapper.CREATOR);
+                    this.postBatchToProcessManager(eventWrappers);
+                    return true;
+                }
+                case TRANSACTION_getTypeName: {
+                    data.enforceInterface(descriptor);
+                    int typeId;
+                    typeId = data.readInt();
+                    String result = this.getTypeName(typeId);
                     reply.writeNoException();
+                    reply.writeString(result);
+                    return true;
+                }
+                case TRANSACTION_requestStickyPage: {
+                    data.enforceInterface(descriptor);
+                    IProcessCallback callback;
+                    callback = IProcessCallback.Stub.asInterface(data.readStrongBinder());
+                    List<String> groups;
+                    groups = data.createStringArrayList();
+                    long afterVersion;
+                    afterVersion = data.readLong();
+                    this.requestStickyPage(callback, groups, afterVersion);
                     return true;
                 }
                 default: {
@@ -119,18 +164,21 @@ public interface IProcessManager extends IInterface {
             }
 
             @Override
-            public void register(IProcessCallback callback) throws RemoteException {
+            public int register(IProcessCallback callback) throws RemoteException {
                 Parcel _data = Parcel.obtain();
                 Parcel _reply = Parcel.obtain();
+                int _result;
                 try {
                     _data.writeInterfaceToken(DESCRIPTOR);
                     _data.writeStrongBinder((((callback != null)) ? (callback.asBinder()) : (null)));
                     mRemote.transact(Stub.TRANSACTION_register, _data, _reply, 0);
                     _reply.readException();
+                    _result = _reply.readInt();
                 } finally {
                     _reply.recycle();
                     _data.recycle();
                 }
+                return _result;
             }
 
             @Override
@@ -151,7 +199,6 @@ public interface IProcessManager extends IInterface {
             @Override
             public void resetSticky(EventWrapper eventWrapper) throws RemoteException {
                 Parcel _data = Parcel.obtain();
-                Parcel _reply = Parcel.obtain();
                 try {
                     _data.writeInterfaceToken(DESCRIPTOR);
                     if ((eventWrapper != null)) {
@@ -160,10 +207,8 @@ public interface IProcessManager extends IInterface {
                     } else {
                         _data.writeInt(0);
                     }
-                    mRemote.transact(Stub.TRANSACTION_resetSticky, _data, _reply, 0);
-                    _reply.readException();
+                    mRemote.transact(Stub.TRANSACTION_resetSticky, _data, null, IBinder.FLAG_ONEWAY);
                 } finally {
-                    _reply.recycle();
                     _data.recycle();
                 }
             }
@@ -171,7 +216,6 @@ public interface IProcessManager extends IInterface {
             @Override
             public void postToProcessManager(EventWrapper eventWrapper) throws RemoteException {
                 Parcel _data = Parcel.obtain();
-                Parcel _reply = Parcel.obtain();
                 try {
                     _data.writeInterfaceToken(DESCRIPTOR);
                     if ((eventWrapper != null)) {
@@ -180,12 +224,81 @@ public interface IProcessManager extends IInterface {
                     } else {
                         _data.writeInt(0);
                     }
-                    mRemote.transact(Stub.TRANSACTION_postToService, _data, _reply, 0);
+                    mRemote.transact(Stub.TRANSACTION_postToService, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
+            }
+
+            @Override
+            public void postBatchToProcessManager(List<EventWrapper> eventWrappers) throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    _data.writeTypedList(eventWrappers);
+                    mRemote.transact(Stub.TRANSACTION_postBatchToService, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
+            }
+
+            @Override
+            public void subscribe(IProcessCallback callback, String key) throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    _data.writeStrongBinder((((callback != null)) ? (callback.asBinder()) : (null)));
+                    _data.writeString(key);
+                    mRemote.transact(Stub.TRANSACTION_subscribe, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
+            }
+
+            @Override
+            public void unsubscribe(IProcessCallback callback, String key) throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    _data.writeStrongBinder((((callback != null)) ? (callback.asBinder()) : (null)));
+                    _data.writeString(key);
+                    mRemote.transact(Stub.TRANSACTION_unsubscribe, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
+            }
+
+            @Override
+            public String getTypeName(int typeId) throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                Parcel _reply = Parcel.obtain();
+                String _result;
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    _data.writeInt(typeId);
+                    mRemote.transact(Stub.TRANSACTION_getTypeName, _data, _reply, 0);
                     _reply.readException();
+                    _result = _reply.readString();
                 } finally {
                     _reply.recycle();
                     _data.recycle();
                 }
+                return _result;
+            }
+
+            @Override
+            public void requestStickyPage(IProcessCallback callback, List<String> groups, long afterVersion)
+                    throws RemoteException {
+                Parcel _data = Parcel.obtain();
+                try {
+                    _data.writeInterfaceToken(DESCRIPTOR);
+                    _data.writeStrongBinder((((callback != null)) ? (callback.asBinder()) : (null)));
+                    _data.writeStringList(groups);
+                    _data.writeLong(afterVersion);
+                    mRemote.transact(Stub.TRANSACTION_requestStickyPage, _data, null, IBinder.FLAG_ONEWAY);
+                } finally {
+                    _data.recycle();
+                }
             }
         }
 
@@ -193,13 +306,28 @@ public interface IProcessManager extends IInterface {
         static final int TRANSACTION_unregister = IBinder.FIRST_CALL_TRANSACTION + 1;
         static final int TRANSACTION_resetSticky = IBinder.FIRST_CALL_TRANSACTION + 2;
         static final int TRANSACTION_postToService = IBinder.FIRST_CALL_TRANSACTION + 3;
+        static final int TRANSACTION_postBatchToService = IBinder.FIRST_CALL_TRANSACTION + 4;
+        static final int TRANSACTION_subscribe = IBinder.FIRST_CALL_TRANSACTION + 5;
+        static final int TRANSACTION_unsubscribe = IBinder.FIRST_CALL_TRANSACTION + 6;
+        static final int TRANSACTION_getTypeName = IBinder.FIRST_CALL_TRANSACTION + 7;
+        static final int TRANSACTION_requestStickyPage = IBinder.FIRST_CALL_TRANSACTION + 8;
     }
 
-    void register(IProcessCallback callback) throws RemoteException;
+    int register(IProcessCallback callback) throws RemoteException;
 
     void unregister(IProcessCallback callback) throws RemoteException;
 
     void resetSticky(EventWrapper eventWrapper) throws RemoteException;
 
     void postToProcessManager(EventWrapper eventWrapper) throws RemoteException;
+
+    void postBatchToProcessManager(List<EventWrapper> eventWrappers) throws RemoteException;
+
+    void subscribe(IProcessCallback callback, String key) throws RemoteException;
+
+    void unsubscribe(IProcessCallback callback, String key) throws RemoteException;
+
+    String getTypeName(int typeId) throws RemoteException;
+
+    void requestStickyPage(IProcessCallback callback, List<String> groups, long afterVersion) throws RemoteException;
 }
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：DataUtil.java  模块：ElegantBus.ipc.main  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 10:33:34
+ * 当前修改时间：2026年10月17日 22:10:08
+ * 上次修改时间：2026年10月17日 21:52:33
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -15,13 +15,16 @@ package cody.bus;
 import android.content.ContentValues;
 import android.database.Cursor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import cody.bus.db.BusColumnInfo;
 import cody.bus.db.EventBean;
 
 public class DataUtil {
 
     public static EventWrapper convert(EventBean bean) {
-        return new EventWrapper(bean.processName, bean.group, bean.event, bean.type, bean.json, bean.multiProcess);
+        return new EventWrapper(bean.processName, bean.group, bean.event, bean.type, bean.data, bean.multiProcess);
     }
 
     public static EventBean convert(EventWrapper wrapper) {
@@ -31,7 +34,7 @@ public class DataUtil {
         bean.group = wrapper.group;
         bean.event = wrapper.event;
         bean.type = wrapper.type;
-        bean.json = wrapper.json;
+        bean.data = wrapper.data;
         bean.multiProcess = wrapper.multiProcess;
         bean.valid = true;
         bean.time = System.currentTimeMillis();
@@ -45,20 +48,42 @@ public class DataUtil {
         bean.group = values.getAsString(BusColumnInfo.GROUP);
         bean.event = values.getAsString(BusColumnInfo.EVENT);
         bean.type = values.getAsString(BusColumnInfo.TYPE);
-        bean.json = values.getAsString(BusColumnInfo.JSON);
+        bean.data = values.getAsByteArray(BusColumnInfo.DATA);
         bean.multiProcess = values.getAsBoolean(BusColumnInfo.MULTI_PROCESS);
         bean.time = System.currentTimeMillis();
         return bean;
     }
 
+    /**
+     * 批量转发时去掉接收进程自己发送的事件
+     * 一批事件一般来自同一个进程，大部分情况直接返回原列表
+     *
+     * @param process       接收事件的进程
+     * @param eventWrappers 事件
+     * @return 需要发送给这个进程的事件
+     */
+    static List<EventWrapper> filterOtherProcess(ProcessRecord process, List<EventWrapper> eventWrappers) {
+        List<EventWrapper> result = null;
+        for (int i = 0; i < eventWrappers.size(); i++) {
+            EventWrapper eventWrapper = eventWrappers.get(i);
+            boolean same = process.isSender(eventWrapper);
+            if (same && result == null) {
+                result = new ArrayList<>(eventWrappers.subList(0, i));
+            } else if (!same && result != null) {
+                result.add(eventWrapper);
+            }
+        }
+        return result == null ? eventWrappers : result;
+    }
+
     public static EventWrapper convert(Cursor cursor) {
         String key = cursor.getString(cursor.getColumnIndexOrThrow(BusColumnInfo.KEY));
         String processName = cursor.getString(cursor.getColumnIndexOrThrow(BusColumnInfo.PROCESS_NAME));
         String group = cursor.getString(cursor.getColumnIndexOrThrow(BusColumnInfo.GROUP));
         String event = cursor.getString(cursor.getColumnIndexOrThrow(BusColumnInfo.EVENT));
         String type = cursor.getString(cursor.getColumnIndexOrThrow(BusColumnInfo.TYPE));
-        String json = cursor.getString(cursor.getColumnIndexOrThrow(BusColumnInfo.JSON));
+        byte[] data = cursor.getBlob(cursor.getColumnIndexOrThrow(BusColumnInfo.DATA));
         boolean multiProcess = cursor.getInt(cursor.getColumnIndexOrThrow(BusColumnInfo.MULTI_PROCESS)) > 0;
-        return new EventWrapper(processName, group, event, type, json, multiProcess);
+        return new EventWrapper(processName, group, event, type, data, multiProcess);
     }
 }
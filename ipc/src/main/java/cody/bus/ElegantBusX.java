@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ElegantBusX.java  模块：ElegantBus.ipc.main  项目：ElegantBus
- * 当前修改时间：2023年06月05日 20:59:58
- * 上次修改时间：2023年06月05日 20:43:19
+ * 当前修改时间：2026年10月17日 22:54:05
+ * 上次修改时间：2026年10月17日 22:30:42
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -51,6 +51,50 @@ public class ElegantBusX {
         sLauncher = null;
     }
 
+    /**
+     * 设置发送到其他进程的事件合并发送策略，满足任一条件就发送，一般不需要设置
+     *
+     * @param maxEvents    一次最多发送的事件数，1 表示不合并
+     * @param maxBytes     一次发送的预估大小上限，字节
+     * @param lingerMillis 第一个事件最多等待的时间，毫秒，0 表示不等待
+     */
+    public static void setBatchPolicy(int maxEvents, int maxBytes, long lingerMillis) {
+        EventBatcher.setMaxEvents(maxEvents);
+        EventBatcher.setMaxBytes(maxBytes);
+        EventBatcher.setLingerMillis(lingerMillis);
+    }
+
+    /**
+     * 设置服务进程发往每个进程的待发送队列策略，某个进程处理慢时按策略丢弃或者合并，一般不需要设置
+     * 只对服务进程有效，provider 方式没有服务进程转发，不需要设置
+     *
+     * @param maxDepth 每个进程最多等待发送的调用数
+     * @param policy   超过上限时的处理方式
+     */
+    public static void setOutboxPolicy(int maxDepth, OverflowPolicy policy) {
+        ProcessOutbox.setPolicy(maxDepth, policy);
+    }
+
+    /**
+     * 设置使用共享内存跨进程传递的事件大小，编码后超过这个大小的事件不经过 Binder 复制，一般不需要设置
+     * 需要 Android 8.1 以上，provider 方式不支持
+     *
+     * @param bytes 编码后的大小，字节
+     */
+    public static void setLargePayloadThreshold(int bytes) {
+        SharedPayload.setThreshold(bytes);
+    }
+
+    /**
+     * 设置新进程连接服务时同步哪些分组的粘性事件，默认全部同步，需要在 support 之前调用
+     * 没有同步的事件在开始观察时由服务进程补发最新值，provider 方式不支持
+     *
+     * @param groups 分组，不传表示全部
+     */
+    public static void setStickySyncGroups(String... groups) {
+        StickyPage.setSyncGroups(groups);
+    }
+
     //
 
     /**
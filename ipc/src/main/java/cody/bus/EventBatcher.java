@@ -0,0 +1,143 @@
+/*
+ * ************************************************************
+ * 文件：EventBatcher.java  模块：ElegantBus.ipc.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 23:01:19
+ * 上次修改时间：2026年10月17日 22:06:20
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送到其他进程的事件批量发送
+ * <p>
+ * 在跨进程编解码线程中收集事件，满足以下任一条件时合并成一次跨进程调用发送：
+ * 事件数达到 {@link #setMaxEvents(int)}；预估大小达到 {@link #setMaxBytes(int)}；
+ * 编解码线程没有其他待处理的任务；第一个事件等待超过 {@link #setLingerMillis(long)}。
+ * 发送量小的时候不增加延迟，突发大量事件时减少 Binder 调用次数。
+ */
+final class EventBatcher {
+    private static final int DEFAULT_MAX_EVENTS = 32;
+    // Binder 缓冲区整个进程共用 1M，单次调用不宜过大
+    private static final int DEFAULT_MAX_BYTES = 64 * 1024;
+    private static final long DEFAULT_LINGER_MILLIS = 2;
+    // 除了事件值之外，进程名、分组、事件名、类型等的预估大小
+    static final int WRAPPER_OVERHEAD = 256;
+    private static volatile int sMaxEvents = DEFAULT_MAX_EVENTS;
+    private static volatile int sMaxBytes = DEFAULT_MAX_BYTES;
+    private static volatile long sLingerMillis = DEFAULT_LINGER_MILLIS;
+    // 等待超时的计时线程，不占用主线程，空闲时自动结束
+    private static final ScheduledThreadPoolExecutor sTimer = newTimer();
+
+    /**
+     * 实际的跨进程发送
+     */
+    interface Sender {
+        /**
+         * @param batch 按发送顺序排列的事件，至少有一个
+         * @throws Exception 发送失败
+         */
+        void send(@NonNull List<EventWrapper> batch) throws Exception;
+    }
+
+    private final Sender mSender;
+    private ArrayList<EventWrapper> mBatch = new ArrayList<>();
+    private int mBytes;
+    // 等待超时发送的任务是否已经安排
+    private boolean mLingerScheduled;
+    private final Runnable mLingerTask = this::onLinger;
+    private final Runnable mFlushTask = this::flush;
+
+    EventBatcher(@NonNull Sender sender) {
+        mSender = sender;
+    }
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ElegantBus-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    static void setMaxEvents(int maxEvents) {
+        sMaxEvents = Math.max(1, maxEvents);
+    }
+
+    static void setMaxBytes(int maxBytes) {
+        sMaxBytes = Math.max(1, maxBytes);
+    }
+
+    static void setLingerMillis(long lingerMillis) {
+        sLingerMillis = Math.max(0, lingerMillis);
+    }
+
+    /**
+     * 添加一个事件，在跨进程编解码线程中调用
+     *
+     * @param eventWrapper 已经编码的事件
+     */
+    void add(@NonNull EventWrapper eventWrapper) {
+        boolean flush;
+        synchronized (this) {
+            mBatch.add(eventWrapper);
+            mBytes += WRAPPER_OVERHEAD + (eventWrapper.data == null ? 0 : eventWrapper.data.length);
+            flush = mBatch.size() >= sMaxEvents || mBytes >= sMaxBytes
+                    || sLingerMillis == 0 || BusFactory.ready().getIpcQueueDepth() == 0;
+            if (!flush && !mLingerScheduled) {
+                mLingerScheduled = true;
+                sTimer.schedule(mLingerTask, sLingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flush) {
+            flush();
+        }
+    }
+
+    /**
+     * 立即发送已经收集的事件，在跨进程编解码线程中调用
+     * 重置粘性事件等其他跨进程调用之前需要先调用，保证顺序
+     */
+    void flush() {
+        final ArrayList<EventWrapper> batch;
+        synchronized (this) {
+            if (mBatch.isEmpty()) {
+                return;
+            }
+            batch = mBatch;
+            mBatch = new ArrayList<>(Math.min(batch.size(), sMaxEvents));
+            mBytes = 0;
+        }
+        BusFactory.ready().executeIo(() -> {
+            try {
+                mSender.send(batch);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * 等待超时，回到编解码线程发送，保证和之后的事件顺序一致
+     */
+    private void onLinger() {
+        synchronized (this) {
+            mLingerScheduled = false;
+        }
+        BusFactory.ready().getSingleExecutorService().execute(mFlushTask);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * ************************************************************
+ * 文件：InterestFilter.java  模块：ElegantBus.ipc.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 23:03:23
+ * 上次修改时间：2026年10月17日 23:02:28
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送进程根据其他进程的订阅情况跳过没有观察者的事件
+ * <p>
+ * 服务进程为每个进程计算其他进程观察的事件 key 的位图，订阅变化时推送给这个进程。
+ * 位图中没有的事件不编码也不发送，只保留最新值，延迟一段时间后发送，作为服务进程的粘性事件缓存；
+ * 其他进程开始观察时，位图更新，保留的值立即发送。位图只会误判为有观察者，不会漏掉。
+ * 保留的值发送时标记为延迟发送，服务进程作为粘性事件转发，之后才开始观察的普通观察者不会收到。
+ * 还没有收到位图时全部发送。除了 {@link #onInterestChanged(long[])} 之外只在跨进程编解码线程中使用。
+ */
+final class InterestFilter {
+    // 位图的位数，每个事件 key 按哈希占一位
+    static final int BITS = 4096;
+    // 没有观察者的事件延迟发送的时间
+    private static final long DEFER_MILLIS = 1000;
+    // 延迟发送的计时线程，不占用主线程，空闲时自动结束
+    private static final ScheduledThreadPoolExecutor sTimer = newTimer();
+
+    /**
+     * 实际发送事件，编码并交给 EventBatcher
+     */
+    interface Sink {
+        /**
+         * @param eventWrapper 事件
+         * @param value        事件值
+         * @param deferred     是否是延迟发送的值，见 {@link EventWrapper#deferred}
+         */
+        void send(@NonNull EventWrapper eventWrapper, Object value, boolean deferred);
+    }
+
+    private static final class Deferred {
+        final EventWrapper eventWrapper;
+        final Object value;
+
+        Deferred(final EventWrapper eventWrapper, final Object value) {
+            this.eventWrapper = eventWrapper;
+            this.value = value;
+        }
+    }
+
+    private final Sink mSink;
+    // 其他进程观察的事件位图，null 表示还不知道，全部发送
+    private long[] mBits;
+    // 事件 key -> 没有发送的最新值
+    private final LinkedHashMap<String, Deferred> mDeferred = new LinkedHashMap<>();
+    private final Runnable mFlushTask = () -> BusFactory.ready().getSingleExecutorService().execute(this::flush);
+    private boolean mFlushScheduled;
+
+    InterestFilter(@NonNull final Sink sink) {
+        mSink = sink;
+    }
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ElegantBus-defer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    static int bitOf(@NonNull String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (BITS - 1);
+    }
+
+    private static boolean contains(@Nullable long[] bits, @NonNull String key) {
+        if (bits == null) {
+            return true;
+        }
+        int bit = bitOf(key);
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * 发送事件，没有其他进程观察时只保留最新值
+     *
+     * @param eventWrapper 事件
+     * @param value        事件新值
+     */
+    void post(@NonNull EventWrapper eventWrapper, Object value) {
+        String key = eventWrapper.getKey();
+        // 新值代替还没有发送的旧值
+        mDeferred.remove(key);
+        if (contains(mBits, key)) {
+            mSink.send(eventWrapper, value, false);
+            return;
+        }
+        mDeferred.put(key, new Deferred(eventWrapper, value));
+        if (!mFlushScheduled) {
+            mFlushScheduled = true;
+            sTimer.schedule(mFlushTask, DEFER_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 重置粘性事件时丢弃还没有发送的值，避免之后覆盖重置
+     *
+     * @param key 事件 key
+     */
+    void drop(@NonNull String key) {
+        mDeferred.remove(key);
+    }
+
+    /**
+     * 服务进程推送了新的位图，可以在任意线程调用
+     *
+     * @param bits 其他进程观察的事件位图，null 表示不知道，全部发送，比如重新连接服务时
+     */
+    void onInterestChanged(@Nullable final long[] bits) {
+        BusFactory.ready().getSingleExecutorService().execute(() -> update(bits));
+    }
+
+    /**
+     * 现在有观察者的事件立即发送
+     */
+    private void update(@Nullable long[] bits) {
+        mBits = bits;
+        Iterator<Map.Entry<String, Deferred>> iterator = mDeferred.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Deferred> entry = iterator.next();
+            if (contains(bits, entry.getKey())) {
+                iterator.remove();
+                mSink.send(entry.getValue().eventWrapper, entry.getValue().value, true);
+            }
+        }
+    }
+
+    /**
+     * 发送所有保留的值
+     */
+    private void flush() {
+        mFlushScheduled = false;
+        if (mDeferred.isEmpty()) {
+            return;
+        }
+        List<Deferred> deferred = new ArrayList<>(mDeferred.values());
+        mDeferred.clear();
+        ElegantLog.d("Flush events without observers in other process, size = " + deferred.size());
+        for (Deferred item : deferred) {
+            mSink.send(item.eventWrapper, item.value, true);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * ************************************************************
+ * 文件：InterestIndex.java  模块：ElegantBus.ipc.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:57:04
+ * 上次修改时间：2026年10月17日 22:33:57
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 服务进程中记录每个进程观察了哪些事件，转发时只发给有观察者的进程
+ * <p>
+ * 每个事件记录转发的版本，每个进程记录已经收到的版本，
+ * 进程重新开始观察时如果错过了转发，补发服务进程缓存的最新值作为粘性事件。
+ * 只创建了总线没有观察者的进程不接收转发，这个进程中 getValue 只在观察期间是最新值。
+ * 每个进程保存其他进程观察的事件位图，订阅变化时只更新这个事件所在的位，推送给位图有变化的进程，见 {@link InterestFilter}。
+ * 只在服务进程的跨进程编解码线程中使用，不需要加锁。
+ */
+final class InterestIndex {
+    // 事件 key -> 观察这个事件的进程
+    private final HashMap<String, List<ProcessOutbox>> mSubscribers = new HashMap<>();
+    // 事件 key -> 转发的版本，每转发一次加1
+    private final HashMap<String, Integer> mVersions = new HashMap<>();
+    // 进程 -> 事件 key -> 已经收到的版本
+    private final HashMap<ProcessOutbox, HashMap<String, Integer>> mDelivered = new HashMap<>();
+    // 进程编号 -> 进程的待发送队列，发送者自己已经有最新值，也记录为已经收到
+    private final HashMap<Integer, ProcessOutbox> mProcesses = new HashMap<>();
+    // 位 -> 所有进程对这个位上的事件的订阅数
+    private final int[] mCounts = new int[InterestFilter.BITS];
+    // 进程 -> 位图和自己的订阅数
+    private final HashMap<ProcessOutbox, Interest> mInterests = new HashMap<>();
+    // 位图有变化还没有推送的进程
+    private final LinkedHashSet<ProcessOutbox> mChanged = new LinkedHashSet<>();
+
+    private static final class Interest {
+        // 其他进程观察的事件位图
+        final long[] bits = new long[InterestFilter.BITS / 64];
+        // 位 -> 这个进程对这个位上的事件的订阅数
+        final int[] counts = new int[InterestFilter.BITS];
+    }
+
+    /**
+     * 新注册的进程，之后推送位图时包含这个进程
+     *
+     * @param outbox 进程的待发送队列
+     */
+    void add(@NonNull ProcessOutbox outbox) {
+        delivered(outbox);
+        interest(outbox);
+    }
+
+    /**
+     * 进程开始观察事件
+     *
+     * @param outbox 进程的待发送队列
+     * @param key    事件 key
+     * @return 是否错过了转发或者没有同步过这个事件，需要补发最新值
+     */
+    boolean subscribe(@NonNull ProcessOutbox outbox, @NonNull String key) {
+        List<ProcessOutbox> outboxes = mSubscribers.get(key);
+        if (outboxes == null) {
+            outboxes = new ArrayList<>(2);
+            mSubscribers.put(key, outboxes);
+        }
+        if (!outboxes.contains(outbox)) {
+            outboxes.add(outbox);
+            changeCount(outbox, key, 1);
+        }
+        int version = version(key);
+        HashMap<String, Integer> delivered = delivered(outbox);
+        Integer last = delivered.put(key, version);
+        return last == null || last < version;
+    }
+
+    /**
+     * 进程已经没有这个事件的观察者
+     *
+     * @param outbox 进程的待发送队列
+     * @param key    事件 key
+     */
+    void unsubscribe(@NonNull ProcessOutbox outbox, @NonNull String key) {
+        List<ProcessOutbox> outboxes = mSubscribers.get(key);
+        if (outboxes != null && outboxes.remove(outbox)) {
+            changeCount(outbox, key, -1);
+            if (outboxes.isEmpty()) {
+                mSubscribers.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 进程已经结束或者取消注册
+     *
+     * @param outbox 进程的待发送队列
+     */
+    void remove(@NonNull ProcessOutbox outbox) {
+        mProcesses.remove(outbox.process.id);
+        HashMap<String, Integer> delivered = mDelivered.remove(outbox);
+        if (delivered != null) {
+            for (String key : delivered.keySet()) {
+                unsubscribe(outbox, key);
+            }
+        }
+        mInterests.remove(outbox);
+        mChanged.remove(outbox);
+    }
+
+    /**
+     * 新进程已经收到所有缓存的粘性事件
+     *
+     * @param outbox 进程的待发送队列
+     * @param keys   已经发送的事件 key
+     */
+    void markDelivered(@NonNull ProcessOutbox outbox, @NonNull List<String> keys) {
+        HashMap<String, Integer> delivered = delivered(outbox);
+        for (String key : keys) {
+            delivered.put(key, version(key));
+        }
+    }
+
+    /**
+     * 取出上次推送之后位图有变化的进程，订阅变化之后调用
+     *
+     * @return 位图有变化的进程 -> 其他进程观察的事件位图
+     */
+    @NonNull
+    Map<ProcessOutbox, long[]> interestChanges() {
+        if (mChanged.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<ProcessOutbox, long[]> result = new LinkedHashMap<>();
+        for (ProcessOutbox outbox : mChanged) {
+            Interest interest = mInterests.get(outbox);
+            if (interest != null) {
+                result.put(outbox, interest.bits.clone());
+            }
+        }
+        mChanged.clear();
+        return result;
+    }
+
+    /**
+     * 订阅数变化后只更新这个事件所在的位，其他进程对这个位上的事件有订阅时置位
+     *
+     * @param subscriber 订阅变化的进程
+     * @param key        事件 key
+     * @param delta      订阅数变化
+     */
+    private void changeCount(@NonNull ProcessOutbox subscriber, @NonNull String key, int delta) {
+        int bit = InterestFilter.bitOf(key);
+        interest(subscriber).counts[bit] += delta;
+        mCounts[bit] += delta;
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+        for (Map.Entry<ProcessOutbox, Interest> entry : mInterests.entrySet()) {
+            Interest interest = entry.getValue();
+            boolean observed = mCounts[bit] > interest.counts[bit];
+            if (observed != ((interest.bits[word] & mask) != 0)) {
+                interest.bits[word] ^= mask;
+                mChanged.add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * 第一次使用时按其他进程当前的订阅生成位图
+     *
+     * @param outbox 进程的待发送队列
+     * @return 进程的位图和订阅数
+     */
+    @NonNull
+    private Interest interest(@NonNull ProcessOutbox outbox) {
+        Interest interest = mInterests.get(outbox);
+        if (interest == null) {
+            interest = new Interest();
+            for (int bit = 0; bit < InterestFilter.BITS; bit++) {
+                if (mCounts[bit] > 0) {
+                    interest.bits[bit >>> 6] |= 1L << bit;
+                }
+            }
+            mInterests.put(outbox, interest);
+            mChanged.add(outbox);
+        }
+        return interest;
+    }
+
+    /**
+     * 按进程分组需要转发的事件，只包含有观察者且不是发送者自己的进程
+     *
+     * @param eventWrappers 一批事件
+     * @return 进程 -> 发给这个进程的事件，保持原来的顺序
+     */
+    @NonNull
+    Map<ProcessOutbox, List<EventWrapper>> route(@NonNull List<EventWrapper> eventWrappers) {
+        if (eventWrappers.size() == 1) {
+            return route(eventWrappers.get(0));
+        }
+        Map<ProcessOutbox, List<EventWrapper>> result = new LinkedHashMap<>();
+        for (EventWrapper eventWrapper : eventWrappers) {
+            for (Map.Entry<ProcessOutbox, List<EventWrapper>> entry : route(eventWrapper).entrySet()) {
+                List<EventWrapper> batch = result.get(entry.getKey());
+                if (batch == null) {
+                    batch = new ArrayList<>();
+                    result.put(entry.getKey(), batch);
+                }
+                batch.add(eventWrapper);
+            }
+        }
+        return result;
+    }
+
+    private Map<ProcessOutbox, List<EventWrapper>> route(@NonNull EventWrapper eventWrapper) {
+        String key = eventWrapper.getKey();
+        int version = version(key) + 1;
+        mVersions.put(key, version);
+        ProcessOutbox sender = mProcesses.get(eventWrapper.origin);
+        if (sender != null) {
+            delivered(sender).put(key, version);
+        }
+        List<ProcessOutbox> outboxes = mSubscribers.get(key);
+        if (outboxes == null || outboxes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<ProcessOutbox, List<EventWrapper>> result = new LinkedHashMap<>();
+        for (ProcessOutbox outbox : outboxes) {
+            if (outbox.process.isSender(eventWrapper)) {
+                continue;
+            }
+            delivered(outbox).put(key, version);
+            result.put(outbox, Collections.singletonList(eventWrapper));
+        }
+        return result;
+    }
+
+    private int version(String key) {
+        Integer version = mVersions.get(key);
+        return version == null ? 0 : version;
+    }
+
+    private HashMap<String, Integer> delivered(ProcessOutbox outbox) {
+        HashMap<String, Integer> delivered = mDelivered.get(outbox);
+        if (delivered == null) {
+            delivered = new HashMap<>();
+            mDelivered.put(outbox, delivered);
+            mProcesses.put(outbox.process.id, outbox);
+        }
+        return delivered;
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * ************************************************************
+ * 文件：OverflowPolicy.java  模块：ElegantBus.ipc.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:54:05
+ * 上次修改时间：2026年10月17日 22:30:42
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+/**
+ * 服务进程发往某个进程的待发送事件超过上限时的处理方式
+ * 只丢弃普通事件，粘性事件和重置粘性事件不会被丢弃
+ */
+public enum OverflowPolicy {
+    // 丢弃最早的事件，默认
+    DROP_OLDEST,
+    // 丢弃新的事件
+    DROP_NEWEST,
+    // 队列中同一个事件只保留最新的值，没有可以合并的旧值时丢弃最早的事件
+    COALESCE
+}
@@ -0,0 +1,107 @@
+/*
+ * ************************************************************
+ * 文件：PackedEvents.java  模块：ElegantBus.ipc.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:37:53
+ * 上次修改时间：2026年10月17日 22:11:31
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 服务进程转发事件时只序列化一次
+ * <p>
+ * 事件在跨进程编解码线程中序列化为字节数组，保存在 {@link EventWrapper#packed} 中，
+ * 发往每个进程时直接拼接这些字节，不再为每个进程重新写入所有字段，
+ * 转发的开销不再随着接收进程的数量增加。共享内存中的事件包含文件描述符，不能这样序列化，仍然按原来的方式发送。
+ */
+final class PackedEvents {
+    private PackedEvents() {
+    }
+
+    /**
+     * 序列化需要转发的事件，只在跨进程编解码线程中调用
+     *
+     * @param eventWrappers 需要转发的事件
+     */
+    static void prepare(@NonNull List<EventWrapper> eventWrappers) {
+        for (EventWrapper eventWrapper : eventWrappers) {
+            if (eventWrapper.packed != null || eventWrapper.shared != null) {
+                continue;
+            }
+            Parcel parcel = Parcel.obtain();
+            try {
+                eventWrapper.writeToParcel(parcel, 0);
+                eventWrapper.packed = parcel.marshall();
+            } finally {
+                parcel.recycle();
+            }
+        }
+    }
+
+    /**
+     * 拼接一批事件序列化后的数据
+     *
+     * @param eventWrappers 发往一个进程的事件
+     * @return 拼接后的数据，只有一个事件时直接返回它序列化后的数据，不复制，调用方不能修改；
+     * 有事件没有序列化时返回 null，需要按原来的方式发送
+     */
+    @Nullable
+    static byte[] pack(@NonNull List<EventWrapper> eventWrappers) {
+        int size = eventWrappers.size();
+        if (size == 1) {
+            return eventWrappers.get(0).packed;
+        }
+        byte[][] parts = new byte[size][];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            byte[] packed = eventWrappers.get(i).packed;
+            if (packed == null) {
+                return null;
+            }
+            parts[i] = packed;
+            length += packed.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+
+    /**
+     * 接收进程还原拼接的事件
+     *
+     * @param packed 拼接后的数据
+     * @return 事件，保持发送顺序
+     */
+    @NonNull
+    static List<EventWrapper> unpack(@NonNull byte[] packed) {
+        List<EventWrapper> eventWrappers = new ArrayList<>();
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(packed, 0, packed.length);
+            parcel.setDataPosition(0);
+            while (parcel.dataPosition() < parcel.dataSize()) {
+                eventWrappers.add(EventWrapper.CREATOR.createFromParcel(parcel));
+            }
+        } finally {
+            parcel.recycle();
+        }
+        return eventWrappers;
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * ************************************************************
+ * 文件：ProcessOutbox.java  模块：ElegantBus.ipc.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:54:05
+ * 上次修改时间：2026年10月17日 22:51:40
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import android.os.DeadObjectException;
+import android.os.RemoteException;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务进程发往某个进程的待发送队列
+ * <p>
+ * 每个进程一个队列，在待发送队列专用的线程中串行发送，不和观察者共用线程池，某个进程处理慢或者无响应时只有它自己的队列变长，
+ * 不影响发往其他进程的事件。添加事件不会阻塞，队列长度有上限，超过上限时按 {@link OverflowPolicy} 处理。
+ * 连续的同类事件发送时合并成一次批量调用。
+ * 丢弃事件时发送不带数据的 {@link MultiProcess#MSG_ON_SKIP}，接收进程知道这些序号不会再收到，不用等待。
+ */
+final class ProcessOutbox implements Runnable {
+    private static final int DEFAULT_MAX_DEPTH = 256;
+    // 其他调用的消息类型，不和事件合并
+    private static final int WHAT_CALL = -1;
+    // 一次批量调用最多的事件数
+    private static final int MAX_EVENTS_PER_CALL = 64;
+    // 每次执行最多发送的调用次数，超过后重新排队，让其他进程的队列也能执行
+    private static final int MAX_CALLS_PER_RUN = 8;
+    // 接收进程异步缓冲区满了发送失败时，等待一段时间重试，每次等待时间加倍，最多加倍 MAX_RETRIES 次
+    private static final long RETRY_MILLIS = 20;
+    // 普通事件连续失败超过次数后丢弃这次调用的事件，不再重试，其他调用不丢弃
+    private static final int MAX_RETRIES = 5;
+    private static volatile int sMaxDepth = DEFAULT_MAX_DEPTH;
+    private static volatile OverflowPolicy sPolicy = OverflowPolicy.DROP_OLDEST;
+    // 所有待发送队列共用的发送线程，每个队列同一时刻最多只有一个任务在排队或执行
+    private static final ScheduledThreadPoolExecutor sSendExecutor = newSendExecutor();
+
+    /**
+     * 实际的跨进程发送，使用 oneway 调用，不等待接收进程处理
+     */
+    interface Sender {
+        /**
+         * @param eventWrappers 按顺序排列的事件，至少有一个
+         * @param what          消息类型
+         * @throws RemoteException 发送失败
+         */
+        void send(@NonNull List<EventWrapper> eventWrappers, int what) throws RemoteException;
+    }
+
+    /**
+     * 和事件一起排队的其他 oneway 调用，比如回复粘性事件分页，保证和之前转发的事件顺序一致
+     */
+    interface Call {
+        void send() throws RemoteException;
+    }
+
+    private static final class Entry {
+        List<EventWrapper> eventWrappers;
+        final int what;
+        final Call call;
+
+        Entry(final List<EventWrapper> eventWrappers, final int what) {
+            this.eventWrappers = eventWrappers;
+            this.what = what;
+            this.call = null;
+        }
+
+        Entry(final Call call) {
+            this.eventWrappers = null;
+            this.what = WHAT_CALL;
+            this.call = call;
+        }
+    }
+
+    final ProcessRecord process;
+    final String processName;
+    private final Sender mSender;
+    private final ArrayDeque<Entry> mEntries = new ArrayDeque<>();
+    private boolean mScheduled;
+    private boolean mClosed;
+    private long mDroppedCount;
+    // 从队列开头丢弃的事件，发送进程 + 分组 + 事件名 -> 丢弃的最大序号，下一次调用之前先通知接收进程
+    private final LinkedHashMap<String, EventWrapper> mSkipped = new LinkedHashMap<>();
+    // 队列开头正在发送的调用数，发送完成后才移出队列，丢弃和合并时跳过
+    private int mInFlight;
+    // 只在发送线程中使用
+    private int mRetries;
+
+    ProcessOutbox(@NonNull final ProcessRecord process, @NonNull final Sender sender) {
+        this.process = process;
+        this.processName = process.name;
+        mSender = sender;
+    }
+
+    private static ScheduledThreadPoolExecutor newSendExecutor() {
+        final AtomicInteger count = new AtomicInteger(1);
+        int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ElegantBus-outbox-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 设置每个进程待发送队列的上限和超过上限时的处理方式
+     *
+     * @param maxDepth 最多等待发送的调用数
+     * @param policy   超过上限时的处理方式
+     */
+    static void setPolicy(int maxDepth, @NonNull OverflowPolicy policy) {
+        sMaxDepth = Math.max(1, maxDepth);
+        sPolicy = policy;
+    }
+
+    /**
+     * 添加待发送的事件，不会阻塞，在服务进程的编解码线程中调用
+     *
+     * @param eventWrappers 事件，按顺序排列
+     * @param what          消息类型
+     */
+    void offer(@NonNull List<EventWrapper> eventWrappers, int what) {
+        if (eventWrappers.size() > MAX_EVENTS_PER_CALL) {
+            // 新进程的粘性事件可能很多，拆开发送，避免超过 Binder 缓冲区
+            for (int i = 0; i < eventWrappers.size(); i += MAX_EVENTS_PER_CALL) {
+                int end = Math.min(eventWrappers.size(), i + MAX_EVENTS_PER_CALL);
+                offer(new ArrayList<>(eventWrappers.subList(i, end)), what);
+            }
+            return;
+        }
+        synchronized (mEntries) {
+            if (mClosed) {
+                return;
+            }
+            if (mEntries.size() >= sMaxDepth && what == MultiProcess.MSG_ON_POST) {
+                OverflowPolicy policy = sPolicy;
+                if (policy == OverflowPolicy.DROP_NEWEST) {
+                    mDroppedCount += eventWrappers.size();
+                    ElegantLog.w("Outbox of " + processName + " is full, drop newest " + eventWrappers.size());
+                    // 丢弃的是最新的事件，通知放在队列最后，之前的事件还要按顺序分发，队列不为空时已经在发送
+                    skipAtTail(eventWrappers);
+                    return;
+                }
+                if (policy == OverflowPolicy.COALESCE) {
+                    coalesce(eventWrappers);
+                }
+                if (mEntries.size() >= sMaxDepth) {
+                    dropOldest();
+                }
+            }
+            mEntries.addLast(new Entry(eventWrappers, what));
+            if (mScheduled) {
+                return;
+            }
+            mScheduled = true;
+        }
+        schedule();
+    }
+
+    /**
+     * 添加其他 oneway 调用，不会因为队列已满被丢弃
+     *
+     * @param call 调用
+     */
+    void offer(@NonNull Call call) {
+        synchronized (mEntries) {
+            if (mClosed) {
+                return;
+            }
+            mEntries.addLast(new Entry(call));
+            if (mScheduled) {
+                return;
+            }
+            mScheduled = true;
+        }
+        schedule();
+    }
+
+    /**
+     * 接收进程已经不存在，清空队列，不再接收新的事件
+     */
+    void close() {
+        synchronized (mEntries) {
+            mClosed = true;
+            mEntries.clear();
+            mSkipped.clear();
+            mInFlight = 0;
+        }
+    }
+
+    /**
+     * @return 等待发送的调用数
+     */
+    int depth() {
+        synchronized (mEntries) {
+            return mEntries.size();
+        }
+    }
+
+    /**
+     * @return 因为队列已满丢弃的事件数
+     */
+    long droppedCount() {
+        synchronized (mEntries) {
+            return mDroppedCount;
+        }
+    }
+
+    /**
+     * 队列中和新事件相同的普通事件只保留新的值，移除旧值
+     *
+     * @param eventWrappers 新的事件
+     */
+    private void coalesce(@NonNull List<EventWrapper> eventWrappers) {
+        Set<String> keys = new HashSet<>();
+        for (EventWrapper eventWrapper : eventWrappers) {
+            keys.add(eventWrapper.getKey());
+        }
+        Iterator<Entry> iterator = mEntries.iterator();
+        int index = 0;
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (index++ < mInFlight || entry.what != MultiProcess.MSG_ON_POST) {
+                continue;
+            }
+            List<EventWrapper> remain = null;
+            for (int i = 0; i < entry.eventWrappers.size(); i++) {
+                EventWrapper eventWrapper = entry.eventWrappers.get(i);
+                if (keys.contains(eventWrapper.getKey())) {
+                    if (remain == null) {
+                        // 同一个列表可能发往多个进程，不能直接修改
+                        remain = new ArrayList<>(entry.eventWrappers.subList(0, i));
+                    }
+                    mDroppedCount++;
+                    skip(eventWrapper);
+                } else if (remain != null) {
+                    remain.add(eventWrapper);
+                }
+            }
+            if (remain == null) {
+                continue;
+            }
+            if (remain.isEmpty()) {
+                iterator.remove();
+            } else {
+                entry.eventWrappers = remain;
+            }
+        }
+    }
+
+    private void dropOldest() {
+        Iterator<Entry> iterator = mEntries.iterator();
+        int index = 0;
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (index++ >= mInFlight && entry.what == MultiProcess.MSG_ON_POST) {
+                iterator.remove();
+                mDroppedCount += entry.eventWrappers.size();
+                for (EventWrapper eventWrapper : entry.eventWrappers) {
+                    skip(eventWrapper);
+                }
+                ElegantLog.w("Outbox of " + processName + " is full, drop oldest " + entry.eventWrappers.size());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 记录从队列开头丢弃的事件，之后的同一个事件序号更大，在下一次调用之前通知接收进程
+     */
+    private void skip(EventWrapper eventWrapper) {
+        if (eventWrapper.origin == 0 || eventWrapper.seq == 0) {
+            return;
+        }
+        String id = eventWrapper.origin + "/" + eventWrapper.group + "/" + eventWrapper.event;
+        EventWrapper old = mSkipped.get(id);
+        if (old == null || old.seq < eventWrapper.seq) {
+            // 只需要事件标识和序号，不保留数据
+            mSkipped.put(id, eventWrapper.copy(null));
+        }
+    }
+
+    /**
+     * 丢弃最新的事件时在队列最后添加通知，和最后一个还没有发送的通知合并
+     */
+    private void skipAtTail(List<EventWrapper> eventWrappers) {
+        List<EventWrapper> markers = new ArrayList<>(eventWrappers.size());
+        for (EventWrapper eventWrapper : eventWrappers) {
+            if (eventWrapper.origin != 0 && eventWrapper.seq != 0) {
+                markers.add(eventWrapper.copy(null));
+            }
+        }
+        if (markers.isEmpty()) {
+            return;
+        }
+        Entry last = mEntries.peekLast();
+        if (last != null && last.what == MultiProcess.MSG_ON_SKIP && mEntries.size() > mInFlight
+                && last.eventWrappers.size() + markers.size() <= MAX_EVENTS_PER_CALL) {
+            List<EventWrapper> merged = new ArrayList<>(last.eventWrappers);
+            merged.addAll(markers);
+            last.eventWrappers = merged;
+            return;
+        }
+        mEntries.addLast(new Entry(markers, MultiProcess.MSG_ON_SKIP));
+    }
+
+    private void schedule() {
+        sSendExecutor.execute(this);
+    }
+
+    @Override
+    public void run() {
+        for (int call = 0; call < MAX_CALLS_PER_RUN; call++) {
+            List<EventWrapper> eventWrappers;
+            int what;
+            Call pending;
+            int entryCount = 0;
+            boolean skipping = false;
+            synchronized (mEntries) {
+                Entry first = mEntries.peekFirst();
+                if (mClosed || first == null && mSkipped.isEmpty()) {
+                    mScheduled = false;
+                    return;
+                }
+                if (!mSkipped.isEmpty()) {
+                    // 先通知接收进程丢弃了哪些事件，之后的事件不用等待，这次调用不占用队列中的调用
+                    skipping = true;
+                    what = MultiProcess.MSG_ON_SKIP;
+                    eventWrappers = new ArrayList<>(mSkipped.values());
+                    pending = null;
+                    mSkipped.clear();
+                } else {
+                    what = first.what;
+                    eventWrappers = first.eventWrappers;
+                    pending = first.call;
+                    // 连续的同类事件合并成一次调用，发送成功之后才移出队列
+                    for (Entry entry : mEntries) {
+                        if (entry.what != what || pending != null && entryCount > 0) break;
+                        if (entryCount > 0) {
+                            if (eventWrappers.size() + entry.eventWrappers.size() > MAX_EVENTS_PER_CALL) break;
+                            if (entryCount == 1) {
+                                eventWrappers = new ArrayList<>(eventWrappers);
+                            }
+                            eventWrappers.addAll(entry.eventWrappers);
+                        }
+                        entryCount++;
+                    }
+                }
+                mInFlight = entryCount;
+            }
+            try {
+                if (pending != null) {
+                    pending.send();
+                } else {
+                    mSender.send(eventWrappers, what);
+                }
+            } catch (DeadObjectException e) {
+                ElegantLog.w("Process " + processName + " is dead, clear outbox.");
+                close();
+                synchronized (mEntries) {
+                    mScheduled = false;
+                    mInFlight = 0;
+                }
+                return;
+            } catch (RemoteException e) {
+                if (mRetries < MAX_RETRIES || what != MultiProcess.MSG_ON_POST) {
+                    // 接收进程的异步缓冲区满了，稍后重试，期间其他进程不受影响
+                    // 只有普通事件超过次数后丢弃，粘性事件、重置和其他调用一直重试，直到接收进程结束时关闭队列
+                    ElegantLog.w("Send to " + processName + " failed, retry later. " + e);
+                    if (skipping) {
+                        synchronized (mEntries) {
+                            for (EventWrapper eventWrapper : eventWrappers) {
+                                skip(eventWrapper);
+                            }
+                        }
+                    }
+                    sSendExecutor.schedule(this, RETRY_MILLIS << Math.min(mRetries, MAX_RETRIES),
+                            TimeUnit.MILLISECONDS);
+                    mRetries++;
+                    return;
+                }
+                ElegantLog.e("Send to " + processName + " failed " + mRetries + " times, drop " +
+                        eventWrappers.size() + ". " + e);
+                synchronized (mEntries) {
+                    mDroppedCount += eventWrappers.size();
+                    for (EventWrapper eventWrapper : eventWrappers) {
+                        skip(eventWrapper);
+                    }
+                }
+            }
+            mRetries = 0;
+            synchronized (mEntries) {
+                // 关闭时队列已经清空
+                for (int i = 0; i < mInFlight; i++) {
+                    mEntries.pollFirst();
+                }
+                mInFlight = 0;
+            }
+        }
+        schedule();
+    }
+}
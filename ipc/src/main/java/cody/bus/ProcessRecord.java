@@ -0,0 +1,58 @@
+/*
+ * ************************************************************
+ * 文件：ProcessRecord.java  模块：ElegantBus.ipc.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:10:08
+ * 上次修改时间：2026年10月17日 22:10:08
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务进程中记录的已注册进程信息
+ * <p>
+ * 注册时获取一次，之后转发事件不再调用对方进程。每次注册分配一个新的编号，
+ * 发送进程把编号写入事件的 origin，服务进程转发时比较编号跳过发送者自己。
+ */
+final class ProcessRecord {
+    private static final AtomicInteger sNextId = new AtomicInteger();
+    // 服务进程分配的编号，从 1 开始
+    final int id;
+    final String name;
+    final int pid;
+    final int uid;
+
+    ProcessRecord(@NonNull final String name, final int pid, final int uid) {
+        this.id = sNextId.incrementAndGet();
+        this.name = name;
+        this.pid = pid;
+        this.uid = uid;
+    }
+
+    /**
+     * 事件是否由这个进程发送，没有编号的事件按进程名比较
+     *
+     * @param eventWrapper 事件
+     * @return 是否是发送者
+     */
+    boolean isSender(@NonNull EventWrapper eventWrapper) {
+        if (eventWrapper.origin != 0) {
+            return eventWrapper.origin == id;
+        }
+        return ElegantUtil.isSameProcess(name, eventWrapper.processName);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return name + "(id=" + id + ", pid=" + pid + ", uid=" + uid + ")";
+    }
+}
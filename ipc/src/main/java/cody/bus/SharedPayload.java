@@ -0,0 +1,143 @@
+/*
+ * ************************************************************
+ * 文件：SharedPayload.java  模块：ElegantBus.ipc.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:36:07
+ * 上次修改时间：2026年10月17日 22:00:01
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import android.os.Build;
+import android.os.SharedMemory;
+import android.system.ErrnoException;
+import android.system.OsConstants;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * 大事件跨进程传递
+ * <p>
+ * 编码后超过 {@link #setThreshold(int)} 的事件值写入共享内存，跨进程只传递文件描述符，
+ * 不占用 Binder 缓冲区，服务进程转发时也不再复制数据，接收进程只读映射后解码。
+ * 共享内存需要 Android 8.1 以上，低版本仍然直接传递数据。
+ */
+final class SharedPayload {
+    private static final int DEFAULT_THRESHOLD = 128 * 1024;
+    private static volatile int sThreshold = DEFAULT_THRESHOLD;
+
+    private SharedPayload() {
+    }
+
+    static void setThreshold(int threshold) {
+        sThreshold = Math.max(1, threshold);
+    }
+
+    private static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1;
+    }
+
+    /**
+     * 发送前调用，数据较大时放到共享内存
+     * 服务进程自己发送的事件是进程内调用，不需要共享内存
+     *
+     * @param eventWrapper 已经编码的事件
+     * @return 需要发送的事件
+     */
+    @NonNull
+    static EventWrapper share(@NonNull EventWrapper eventWrapper) {
+        if (!isSupported() || eventWrapper.data == null || eventWrapper.data.length < sThreshold
+                || ElegantUtil.isServiceProcess(ElegantUtil.getProcessName())) {
+            return eventWrapper;
+        }
+        try {
+            return Api27.share(eventWrapper);
+        } catch (ErrnoException | RuntimeException e) {
+            ElegantLog.e("Share event data failed, send inline : " + e);
+            return eventWrapper;
+        }
+    }
+
+    /**
+     * 接收后解码前调用，从共享内存读出数据
+     * 服务进程发给自己的事件和待发送队列、粘性事件缓存是同一个对象，还要转发给其他进程，所以读到副本中，不修改收到的事件
+     *
+     * @param eventWrapper 收到的事件
+     * @return 带数据的事件，不在共享内存中时返回原来的事件
+     */
+    @NonNull
+    static EventWrapper restore(@NonNull EventWrapper eventWrapper) {
+        if (eventWrapper.shared == null || !isSupported()) {
+            return eventWrapper;
+        }
+        try {
+            return Api27.restore(eventWrapper);
+        } catch (ErrnoException | RuntimeException e) {
+            ElegantLog.e("Read shared event data failed : " + e + ", Event = " + eventWrapper);
+            return eventWrapper;
+        }
+    }
+
+    /**
+     * 发送进程发送完成后释放共享内存，接收进程已经持有自己的文件描述符
+     *
+     * @param eventWrappers 已经发送的事件
+     */
+    static void release(@NonNull List<EventWrapper> eventWrappers) {
+        if (!isSupported()) {
+            return;
+        }
+        for (EventWrapper eventWrapper : eventWrappers) {
+            if (eventWrapper.shared instanceof SharedMemory) {
+                ((SharedMemory) eventWrapper.shared).close();
+            }
+        }
+    }
+
+    /**
+     * @return 数据是否在共享内存中，服务进程不能把它写入数据库
+     */
+    static boolean isShared(@NonNull EventWrapper eventWrapper) {
+        return eventWrapper.shared != null;
+    }
+
+    @RequiresApi(Build.VERSION_CODES.O_MR1)
+    private static final class Api27 {
+        static EventWrapper share(EventWrapper eventWrapper) throws ErrnoException {
+            byte[] data = eventWrapper.data;
+            SharedMemory memory = SharedMemory.create(eventWrapper.event, data.length);
+            ByteBuffer buffer = memory.mapReadWrite();
+            try {
+                buffer.put(data);
+            } finally {
+                SharedMemory.unmap(buffer);
+            }
+            // 之后只能只读映射
+            memory.setProtect(OsConstants.PROT_READ);
+            EventWrapper shared = eventWrapper.copy(null);
+            shared.shared = memory;
+            return shared;
+        }
+
+        static EventWrapper restore(EventWrapper eventWrapper) throws ErrnoException {
+            SharedMemory memory = (SharedMemory) eventWrapper.shared;
+            ByteBuffer buffer = memory.mapReadOnly();
+            try {
+                byte[] data = new byte[buffer.remaining()];
+                buffer.get(data);
+                // 共享内存不能关闭，其他进程可能还在使用，不再引用后自动释放
+                return eventWrapper.copy(data);
+            } finally {
+                SharedMemory.unmap(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * ************************************************************
+ * 文件：StickyCache.java  模块：ElegantBus.ipc.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:37:20
+ * 上次修改时间：2026年10月17日 22:08:38
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import cody.bus.db.EventBean;
+import cody.bus.db.EventDao;
+import cody.bus.db.EventDataBase;
+
+/**
+ * 服务进程的粘性事件缓存
+ * <p>
+ * 内存中保存每个事件的最新值，转发和补发粘性事件都直接读内存，不等待数据库。
+ * 每次修改和重置分配递增的版本，重置的事件保留为无效记录，进程按版本分页同步，
+ * 重新连接时只同步上次同步之后的修改和重置，见 {@link StickyPage}。无效记录每个 key 只有一条，变更记录的大小不超过事件数。
+ * 数据库只用于服务进程重启后恢复：修改按 key 合并，定时或者积累较多时在一个事务中写入，服务销毁时立即写入。
+ * 写入数据库只在专用的后台线程中执行，失败时修改放回等待下次写入。
+ * 除了 {@link #flush()} 之外只在跨进程编解码线程中使用。
+ */
+final class StickyCache {
+    private static final long FLUSH_DELAY_MILLIS = 500;
+    // 写入失败后等待重试的时间
+    private static final long RETRY_DELAY_MILLIS = 5000;
+    // 积累的修改超过这个数量时立即写入
+    private static final int MAX_DIRTY = 256;
+    // 所有写入按顺序在这个线程中执行，保证数据库中是最后的修改
+    private static final ScheduledThreadPoolExecutor sWriter = newWriter();
+
+    private static final class Entry {
+        final EventWrapper eventWrapper;
+        final long version;
+        // false 表示已经重置
+        final boolean valid;
+
+        Entry(final EventWrapper eventWrapper, final long version, final boolean valid) {
+            this.eventWrapper = eventWrapper;
+            this.version = version;
+            this.valid = valid;
+        }
+    }
+
+    // 事件 key -> 最新值或者重置记录
+    private final HashMap<String, Entry> mEntries = new HashMap<>();
+    // 版本 -> 最新值或者重置记录，分页时直接从上一页的版本开始
+    private final TreeMap<Long, Entry> mVersions = new TreeMap<>();
+    // 最后分配的版本
+    private long mVersion;
+    // 从数据库恢复的最大版本
+    private long mLoadedVersion;
+    // 本次启动分配的第一个版本
+    private long mStartVersion;
+    // 等待写入数据库的修改，事件 key -> 数据，null 表示删除
+    private LinkedHashMap<String, EventBean> mDirty = new LinkedHashMap<>();
+    private final Object mDirtyLock = new Object();
+    private boolean mLoaded;
+    private boolean mFlushScheduled;
+
+    private static ScheduledThreadPoolExecutor newWriter() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ElegantBus-sticky");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 第一次使用时从数据库恢复上次保存的粘性事件和重置记录
+     * <p>
+     * 上次启动时最后的修改可能还没有写入数据库，这些版本可能已经同步给了其他进程，
+     * 本次启动的版本从当前时间（微秒）开始，不会和没有写入的版本重复
+     */
+    private void ensureLoaded() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        for (EventBean bean : EventDataBase.getInstance().eventDao().getChangeList()) {
+            putEntry(bean.key, new Entry(DataUtil.convert(bean), bean.version, bean.valid));
+            mLoadedVersion = Math.max(mLoadedVersion, bean.version);
+        }
+        mVersion = Math.max(mLoadedVersion, System.currentTimeMillis() * 1000);
+        mStartVersion = mVersion + 1;
+        ElegantLog.d("Sticky cache loaded, size = " + mEntries.size() + ", version = " + mLoadedVersion);
+    }
+
+    private void putEntry(String key, Entry entry) {
+        Entry old = mEntries.put(key, entry);
+        if (old != null) {
+            mVersions.remove(old.version);
+        }
+        mVersions.put(entry.version, entry);
+    }
+
+    /**
+     * 保存事件的最新值
+     *
+     * @param eventWrapper 事件
+     */
+    void put(@NonNull EventWrapper eventWrapper) {
+        ensureLoaded();
+        String key = eventWrapper.getKey();
+        long version = nextVersion();
+        putEntry(key, new Entry(eventWrapper, version, true));
+        // 共享内存中的大数据只保存在内存中，数据库中的旧值删除
+        markDirty(key, SharedPayload.isShared(eventWrapper) ? null : toBean(eventWrapper, version, true));
+    }
+
+    /**
+     * 重置粘性事件，删除事件的值，保留重置记录用于增量同步
+     *
+     * @param eventWrapper 事件
+     */
+    void remove(@NonNull EventWrapper eventWrapper) {
+        ensureLoaded();
+        String key = eventWrapper.getKey();
+        long version = nextVersion();
+        EventWrapper reset = eventWrapper.copy(null);
+        putEntry(key, new Entry(reset, version, false));
+        markDirty(key, toBean(reset, version, false));
+    }
+
+    @Nullable
+    EventWrapper get(@NonNull String key) {
+        ensureLoaded();
+        Entry entry = mEntries.get(key);
+        return entry != null && entry.valid ? entry.eventWrapper : null;
+    }
+
+    /**
+     * @return 所有粘性事件，按最后修改时间排序
+     */
+    @NonNull
+    List<EventWrapper> all() {
+        ensureLoaded();
+        List<EventWrapper> eventWrappers = new ArrayList<>(mVersions.size());
+        for (Entry entry : mVersions.values()) {
+            if (entry.valid) {
+                eventWrappers.add(entry.eventWrapper);
+            }
+        }
+        return eventWrappers;
+    }
+    /**
+     * 进程重新连接时确定从哪个版本开始同步
+     * <p>
+     * 本次启动分配的版本和已经写入数据库的版本都可以增量同步，
+     * 上次启动时没有写入数据库的版本已经丢失，只能全部同步
+     *
+     * @param lastVersion 进程上次同步到的版本，没有同步过为 0
+     * @return 开始同步的版本，0 表示全部同步
+     */
+    long syncFrom(long lastVersion) {
+        ensureLoaded();
+        if (lastVersion > mLoadedVersion && lastVersion < mStartVersion || lastVersion > mVersion) {
+            ElegantLog.d("Sticky version " + lastVersion + " is unknown, sync all.");
+            return 0;
+        }
+        return lastVersion;
+    }
+
+    /**
+     * 获取一页粘性事件
+     *
+     * @param groups       只要这些分组的事件，null 表示全部
+     * @param afterVersion 上一页的版本，第一页为 {@link #syncFrom(long)} 的结果
+     * @return 版本大于 afterVersion 的修改，按版本排序，全部同步时不包含重置记录
+     */
+    @NonNull
+    StickyPage page(@Nullable List<String> groups, long afterVersion) {
+        ensureLoaded();
+        ArrayList<EventWrapper> events = new ArrayList<>();
+        ArrayList<EventWrapper> resets = new ArrayList<>();
+        long version = afterVersion;
+        int bytes = 0;
+        for (Entry entry : mVersions.tailMap(afterVersion, false).values()) {
+            EventWrapper eventWrapper = entry.eventWrapper;
+            if (groups != null && !groups.contains(eventWrapper.group)) {
+                continue;
+            }
+            if (!entry.valid && afterVersion == 0) {
+                // 全部同步时进程还没有任何值，不需要重置
+                continue;
+            }
+            int size = EventBatcher.WRAPPER_OVERHEAD + (eventWrapper.data == null ? 0 : eventWrapper.data.length);
+            int count = events.size() + resets.size();
+            if (count > 0 && (count >= StickyPage.MAX_EVENTS || bytes + size > StickyPage.MAX_BYTES)) {
+                return new StickyPage(events, resets, version, true);
+            }
+            if (entry.valid) {
+                events.add(eventWrapper);
+            } else {
+                resets.add(eventWrapper);
+            }
+            bytes += size;
+            version = entry.version;
+        }
+        // 最后一页返回当前版本，下次重新连接时从这里开始
+        return new StickyPage(events, resets, Math.max(version, mVersion), false);
+    }
+
+    private long nextVersion() {
+        return ++mVersion;
+    }
+
+    private static EventBean toBean(EventWrapper eventWrapper, long version, boolean valid) {
+        EventBean bean = DataUtil.convert(eventWrapper);
+        bean.version = version;
+        bean.valid = valid;
+        return bean;
+    }
+
+    private void markDirty(String key, EventBean bean) {
+        boolean flushNow = false;
+        synchronized (mDirtyLock) {
+            mDirty.put(key, bean);
+            if (mDirty.size() >= MAX_DIRTY) {
+                flushNow = true;
+            } else if (!mFlushScheduled) {
+                mFlushScheduled = true;
+                sWriter.schedule(this::write, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow) {
+            sWriter.execute(this::write);
+        }
+    }
+
+    /**
+     * 把积累的修改在后台线程中立即写入数据库，可以在任意线程调用，不会阻塞
+     */
+    void flush() {
+        sWriter.execute(this::write);
+    }
+
+    /**
+     * 在一个事务中写入积累的修改，只在写入线程中执行
+     */
+    private void write() {
+        final LinkedHashMap<String, EventBean> dirty;
+        synchronized (mDirtyLock) {
+            mFlushScheduled = false;
+            if (mDirty.isEmpty()) {
+                return;
+            }
+            dirty = mDirty;
+            mDirty = new LinkedHashMap<>();
+        }
+        final List<EventBean> inserts = new ArrayList<>(dirty.size());
+        final List<EventBean> deletes = new ArrayList<>();
+        for (Map.Entry<String, EventBean> entry : dirty.entrySet()) {
+            if (entry.getValue() != null) {
+                inserts.add(entry.getValue());
+            } else {
+                EventBean bean = new EventBean();
+                bean.key = entry.getKey();
+                deletes.add(bean);
+            }
+        }
+        try {
+            EventDataBase dataBase = EventDataBase.getInstance();
+            final EventDao dao = dataBase.eventDao();
+            dataBase.runInTransaction(() -> {
+                if (!deletes.isEmpty()) {
+                    dao.deleteAll(deletes);
+                }
+                if (!inserts.isEmpty()) {
+                    dao.insertAll(inserts);
+                }
+            });
+            ElegantLog.d("Sticky cache flushed, insert = " + inserts.size() + ", delete = " + deletes.size());
+        } catch (RuntimeException e) {
+            ElegantLog.e("Sticky cache flush failed, retry later : " + e);
+            restoreDirty(dirty);
+            return;
+        }
+        if (!inserts.isEmpty()) {
+            BusFactory.ready().getSingleExecutorService().execute(() -> releasePacked(inserts));
+        }
+    }
+
+    /**
+     * 写入失败的修改放回，之后又修改过的 key 以新的修改为准
+     */
+    private void restoreDirty(LinkedHashMap<String, EventBean> failed) {
+        synchronized (mDirtyLock) {
+            for (String key : mDirty.keySet()) {
+                failed.remove(key);
+            }
+            failed.putAll(mDirty);
+            mDirty = failed;
+            if (!mFlushScheduled) {
+                mFlushScheduled = true;
+                sWriter.schedule(this::write, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * 已经写入数据库的事件不再保留转发时序列化的数据，需要时重新序列化
+     * 待发送队列可能还在使用原来的事件，所以换成不带序列化数据的副本，不修改原来的事件
+     *
+     * @param persisted 已经写入的数据
+     */
+    private void releasePacked(List<EventBean> persisted) {
+        for (EventBean bean : persisted) {
+            Entry entry = mEntries.get(bean.key);
+            if (entry != null && entry.version == bean.version && entry.eventWrapper.packed != null) {
+                putEntry(bean.key, new Entry(entry.eventWrapper.copy(entry.eventWrapper.data), entry.version,
+                        entry.valid));
+            }
+        }
+    }
+}
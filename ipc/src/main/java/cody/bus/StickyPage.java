@@ -0,0 +1,113 @@
+/*
+ * ************************************************************
+ * 文件：StickyPage.java  模块：ElegantBus.ipc.main  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 22:08:38
+ * 上次修改时间：2026年10月17日 22:06:20
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc.main
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 新进程同步粘性事件时的一页数据
+ * <p>
+ * 服务进程按修改顺序分页，每页不超过 {@link #MAX_EVENTS} 个事件并且预估大小不超过 {@link #MAX_BYTES}，
+ * 避免一次调用超过 Binder 缓冲区，请求下一页时带上本页的 {@link #version}。
+ * 最后一页的版本由进程保存，重新连接时带上，只同步之后的修改和重置
+ */
+public final class StickyPage implements Parcelable {
+    static final int MAX_EVENTS = 64;
+    static final int MAX_BYTES = 64 * 1024;
+    // 只同步这些分组的粘性事件，null 表示全部
+    private static volatile ArrayList<String> sSyncGroups;
+    // 本页的粘性事件，按修改顺序排列
+    final ArrayList<EventWrapper> events;
+    // 本页中已经重置的事件，只在增量同步时出现
+    final ArrayList<EventWrapper> resets;
+    // 本页最后一个事件的版本
+    final long version;
+    // 是否还有下一页
+    final boolean more;
+
+    StickyPage(@NonNull ArrayList<EventWrapper> events, @NonNull ArrayList<EventWrapper> resets, long version,
+               boolean more) {
+        this.events = events;
+        this.resets = resets;
+        this.version = version;
+        this.more = more;
+    }
+
+    private StickyPage(Parcel in) {
+        events = in.createTypedArrayList(EventWrapper.CREATOR);
+        resets = in.createTypedArrayList(EventWrapper.CREATOR);
+        version = in.readLong();
+        more = in.readByte() != 0;
+    }
+
+    static void setSyncGroups(@Nullable String... groups) {
+        sSyncGroups = groups == null || groups.length == 0 ? null : new ArrayList<>(Arrays.asList(groups));
+    }
+
+    @Nullable
+    static List<String> getSyncGroups() {
+        return sSyncGroups;
+    }
+
+    /**
+     * @return 本页事件的 key
+     */
+    @NonNull
+    List<String> keys() {
+        List<String> keys = new ArrayList<>(events.size() + resets.size());
+        for (EventWrapper eventWrapper : events) {
+            keys.add(eventWrapper.getKey());
+        }
+        for (EventWrapper eventWrapper : resets) {
+            keys.add(eventWrapper.getKey());
+        }
+        return keys;
+    }
+
+    public static final Creator<StickyPage> CREATOR = new Creator<StickyPage>() {
+        @Override
+        public StickyPage createFromParcel(Parcel in) {
+            return new StickyPage(in);
+        }
+
+        @Override
+        public StickyPage[] newArray(int size) {
+            return new StickyPage[size];
+        }
+    };
+
+    @Override
+    public int describeContents() {
+        int contents = 0;
+        for (EventWrapper eventWrapper : events) {
+            contents |= eventWrapper.describeContents();
+        }
+        return contents;
+    }
+
+    @Override
+    public void writeToParcel(final Parcel dest, final int flags) {
+        dest.writeTypedList(events);
+        dest.writeTypedList(resets);
+        dest.writeLong(version);
+        dest.writeByte((byte) (more ? 1 : 0));
+    }
+}
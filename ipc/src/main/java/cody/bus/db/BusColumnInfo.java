@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：BusColumnInfo.java  模块：ElegantBus.ipc  项目：ElegantBus
- * 当前修改时间：2023年06月01日 17:08:51
- * 上次修改时间：2023年06月01日 13:53:56
+ * 当前修改时间：2026年10月17日 21:52:33
+ * 上次修改时间：2023年06月01日 17:08:51
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -18,6 +18,6 @@ public class BusColumnInfo {
     public final static String GROUP = "group";
     public final static String EVENT = "event";
     public final static String TYPE = "type";
-    public final static String JSON = "json";
+    public final static String DATA = "data";
     public final static String MULTI_PROCESS = "multi_process";
 }
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：EventBean.java  模块：ElegantBus.ipc.main  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月02日 16:58:02
+ * 当前修改时间：2026年10月17日 22:08:38
+ * 上次修改时间：2026年10月17日 21:52:33
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -34,9 +34,9 @@ public class EventBean {
     // 发送的事件类型
     @ColumnInfo
     public String type;
-    // 发送的事件值的JSON串
+    // 发送的事件值编码后的数据
     @ColumnInfo
-    public String json;
+    public byte[] data;
     // 是否支持多进程
     @ColumnInfo(name = "multi_process")
     public boolean multiProcess;
@@ -44,6 +44,9 @@ public class EventBean {
     public boolean valid = true;
     @ColumnInfo
     public long time;
+    // 服务进程中最后修改的版本，重置的事件 valid 为 false 并保留版本，用于增量同步
+    @ColumnInfo
+    public long version;
 
     public EventBean() {
         key = "default";
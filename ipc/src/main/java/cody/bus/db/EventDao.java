@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：EventDao.java  模块：ElegantBus.ipc.main  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 09:46:27
+ * 当前修改时间：2026年10月17日 22:08:38
+ * 上次修改时间：2026年10月17日 22:02:05
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -31,18 +31,30 @@ public interface EventDao {
     @Query("SELECT * FROM EVENT_CACHE_TABLE where valid > 0 order by time ASC")
     List<EventBean> getAllList();
 
+    @Query("SELECT * FROM EVENT_CACHE_TABLE order by version ASC")
+    List<EventBean> getChangeList();
+
     @Query("SELECT * FROM EVENT_CACHE_TABLE where `key`=:key")
     Cursor getByKeyCursor(String key);
 
     @Query("SELECT * FROM EVENT_CACHE_TABLE where `key`=:key")
     EventBean getByKey(String key);
 
+    @Query("SELECT * FROM EVENT_CACHE_TABLE where `key` in (:keys) order by time ASC")
+    Cursor getByKeysCursor(List<String> keys);
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insert(EventBean event);
 
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<EventBean> events);
+
     @Delete
     int delete(EventBean event);
 
+    @Delete
+    int deleteAll(List<EventBean> events);
+
     @Update
     void update(EventBean event);
 }
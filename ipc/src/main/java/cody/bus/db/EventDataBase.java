@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：EventDataBase.java  模块：ElegantBus.ipc.main  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 10:28:01
+ * 当前修改时间：2026年10月17日 22:08:38
+ * 上次修改时间：2026年10月17日 21:52:33
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -20,7 +20,7 @@ import androidx.room.RoomDatabase;
 
 import cody.bus.ElegantLog;
 
-@Database(entities = {EventBean.class}, version = 1, exportSchema = false)
+@Database(entities = {EventBean.class}, version = 3, exportSchema = false)
 public abstract class EventDataBase extends RoomDatabase {
     public abstract EventDao eventDao();
 
@@ -44,6 +44,9 @@ public abstract class EventDataBase extends RoomDatabase {
     }
 
     private static EventDataBase create(final Context context, String dbName) {
-        return Room.databaseBuilder(context, EventDataBase.class, dbName + ".db").build();
+        // 只是粘性事件的缓存，数据格式变化时直接重建
+        return Room.databaseBuilder(context, EventDataBase.class, dbName + ".db")
+                .fallbackToDestructiveMigration()
+                .build();
     }
 }
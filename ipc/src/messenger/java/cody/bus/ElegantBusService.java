@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ElegantBusService.java  模块：ElegantBus.ipc.main  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 10:40:09
+ * 当前修改时间：2026年10月17日 23:03:23
+ * 上次修改时间：2026年10月17日 22:56:51
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -22,10 +22,12 @@ import android.os.Message;
 import android.os.Messenger;
 import android.os.RemoteException;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
-import cody.bus.db.EventBean;
 import cody.bus.db.EventDataBase;
 
 
@@ -37,9 +39,25 @@ public class ElegantBusService extends Service {
     public final static int MSG_UNREGISTER = 0x02;
     public final static int MSG_RESET_STICKY = 0x03;//进程重置sticky
     public final static int MSG_POST_TO_SERVICE = 0x04;//进程分发到service
+    public final static int MSG_POST_BATCH_TO_SERVICE = 0x08;//进程批量分发到service
+    public final static int MSG_SUBSCRIBE = 0x09;//进程开始观察事件
+    public final static int MSG_UNSUBSCRIBE = 0x0A;//进程不再观察事件
+    public final static int MSG_ON_INTEREST = 0x0B;//service推送其他进程观察的事件位图
+    public final static int MSG_ON_PROCESS_GONE = 0x0D;//service通知其他进程某个进程已经结束
+    public final static String MSG_KEY = "MSG_KEY";
     public final static String MSG_PROCESS_NAME = "MSG_PROCESS_NAME";
+    public final static String MSG_DATA_LIST = "MSG_DATA_LIST";
+    public final static String MSG_GROUPS = "MSG_GROUPS";
+    public final static String MSG_PID = "MSG_PID";
+    public final static String MSG_UID = "MSG_UID";
+    public final static String MSG_PACKED = "MSG_PACKED";
+    public final static String MSG_INTEREST = "MSG_INTEREST";
     private final List<ProcessCallback> mRemoteCallbackList = new CopyOnWriteArrayList<>();
     private final Messenger mServiceMessenger = new Messenger(new ServiceHandler(Looper.getMainLooper()));
+    // 每个进程观察的事件，只在跨进程编解码线程中使用
+    private final InterestIndex mInterestIndex = new InterestIndex();
+    // 粘性事件缓存，异步写入数据库
+    private final StickyCache mStickyCache = new StickyCache();
 
     @Override
     public void onCreate() {
@@ -47,6 +65,13 @@ public class ElegantBusService extends Service {
         EventDataBase.init(this, ElegantUtil.getHostPackageName(this));
     }
 
+    @Override
+    public void onDestroy() {
+        // 还没有写入的粘性事件写入数据库
+        mStickyCache.flush();
+        super.onDestroy();
+    }
+
     @Override
     public IBinder onBind(Intent intent) {
         return mServiceMessenger.getBinder();
@@ -67,34 +92,77 @@ public class ElegantBusService extends Service {
                 EventWrapper eventWrapper;
                 switch (msg.what) {
                     case MSG_REGISTER:
-                        ProcessCallback callback = new ProcessCallback(mServiceMessenger, processName, msg.replyTo);
+                        // 进程信息只在注册时记录一次，之后按 replyTo 查找发送进程
+                        ProcessRecord process = new ProcessRecord(processName, msg.getData().getInt(MSG_PID),
+                                msg.getData().getInt(MSG_UID));
+                        ProcessCallback callback = new ProcessCallback(mServiceMessenger, process, msg.replyTo);
                         mRemoteCallbackList.add(callback);
-                        if (!ElegantUtil.isServiceProcess(callback.processName())) {
-                            postStickyValueToNewProcess(callback);
-                        }
+                        BusFactory.ready().getSingleExecutorService().execute(() -> {
+                            mInterestIndex.add(callback.outbox);
+                            pushInterest();
+                        });
+                        postStickyValueToNewProcess(callback, !ElegantUtil.isServiceProcess(callback.processName()),
+                                msg.getData().getStringArrayList(MSG_GROUPS));
                         break;
                     case MSG_UNREGISTER:
                         for (ProcessCallback cb : mRemoteCallbackList) {
                             if (cb.processName().equals(processName) && cb.getMessenger() == msg.replyTo) {
                                 mRemoteCallbackList.remove(cb);
+                                cb.outbox.close();
+                                BusFactory.ready().getSingleExecutorService().execute(() -> {
+                                    mInterestIndex.remove(cb.outbox);
+                                    pushInterest();
+                                    notifyProcessGone(cb.outbox.process.id);
+                                });
                             }
                         }
                         break;
+                    case MSG_SUBSCRIBE:
+                    case MSG_UNSUBSCRIBE:
+                        final ProcessCallback subscriber = findCallback(msg.replyTo);
+                        final String key = msg.getData().getString(MSG_KEY);
+                        final boolean subscribe = msg.what == MSG_SUBSCRIBE;
+                        if (subscriber != null && key != null) {
+                            BusFactory.ready().getSingleExecutorService().execute(() -> {
+                                if (!subscribe) {
+                                    mInterestIndex.unsubscribe(subscriber.outbox, key);
+                                } else if (mInterestIndex.subscribe(subscriber.outbox, key)) {
+                                    postStickyValueToProcess(subscriber.outbox, key);
+                                }
+                                pushInterest();
+                            });
+                        }
+                        break;
                     case MSG_RESET_STICKY:
                         eventWrapper = msg.getData().getParcelable(MultiProcess.MSG_DATA);
                         if (eventWrapper != null) {
+                            markOrigin(msg.replyTo, Collections.singletonList(eventWrapper));
                             BusFactory.ready().getSingleExecutorService().execute(() -> {
                                 removeEventFromCache(eventWrapper);
-                                callbackToOtherProcess(eventWrapper, MultiProcess.MSG_ON_RESET_STICKY);
+                                callbackToOtherProcess(Collections.singletonList(eventWrapper),
+                                        MultiProcess.MSG_ON_RESET_STICKY);
                             });
                         }
                         break;
                     case MSG_POST_TO_SERVICE:
                         eventWrapper = msg.getData().getParcelable(MultiProcess.MSG_DATA);
                         if (eventWrapper != null) {
+                            markOrigin(msg.replyTo, Collections.singletonList(eventWrapper));
                             BusFactory.ready().getSingleExecutorService().execute(() -> {
                                 putEventToCache(eventWrapper);
-                                callbackToOtherProcess(eventWrapper, MultiProcess.MSG_ON_POST);
+                                forwardPosts(Collections.singletonList(eventWrapper));
+                            });
+                        }
+                        break;
+                    case MSG_POST_BATCH_TO_SERVICE:
+                        ArrayList<EventWrapper> eventWrappers = msg.getData().getParcelableArrayList(MSG_DATA_LIST);
+                        if (eventWrappers != null && !eventWrappers.isEmpty()) {
+                            markOrigin(msg.replyTo, eventWrappers);
+                            BusFactory.ready().getSingleExecutorService().execute(() -> {
+                                for (EventWrapper item : eventWrappers) {
+                                    putEventToCache(item);
+                                }
+                                forwardPosts(eventWrappers);
                             });
                         }
                         break;
@@ -106,6 +174,62 @@ public class ElegantBusService extends Service {
         }
     }
 
+    /**
+     * 根据进程的 Messenger 查找进程回调
+     *
+     * @param messenger 进程的 Messenger
+     * @return 进程回调，没有注册时为 null
+     */
+    private ProcessCallback findCallback(Messenger messenger) {
+        if (messenger == null) return null;
+        for (ProcessCallback callback : mRemoteCallbackList) {
+            if (messenger.equals(callback.getMessenger())) {
+                return callback;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 订阅变化后把其他进程观察的事件位图推送给位图有变化的进程
+     * 通过进程的待发送队列发送，和转发的事件顺序一致，不在转发线程中调用对方进程
+     */
+    private void pushInterest() {
+        Map<ProcessOutbox, long[]> changes = mInterestIndex.interestChanges();
+        if (changes.isEmpty()) return;
+        for (final ProcessCallback callback : mRemoteCallbackList) {
+            final long[] bits = changes.get(callback.outbox);
+            if (bits != null) {
+                callback.outbox.offer(() -> callback.onInterest(bits));
+            }
+        }
+    }
+
+    /**
+     * 通知其他进程移除结束的进程发送的事件序列，排在之前转发的事件后面
+     *
+     * @param origin 结束的进程编号
+     */
+    private void notifyProcessGone(final int origin) {
+        for (final ProcessCallback callback : mRemoteCallbackList) {
+            callback.outbox.offer(() -> callback.onProcessGone(origin));
+        }
+    }
+
+    /**
+     * 记录事件的发送进程编号，转发时按编号跳过发送者自己
+     *
+     * @param messenger     发送进程的 Messenger
+     * @param eventWrappers 收到的事件
+     */
+    private void markOrigin(Messenger messenger, List<EventWrapper> eventWrappers) {
+        ProcessCallback sender = findCallback(messenger);
+        if (sender == null) return;
+        for (EventWrapper eventWrapper : eventWrappers) {
+            eventWrapper.origin = sender.outbox.process.id;
+        }
+    }
+
     /**
      * 服务进程收到事件先保留，作为其他进程的粘性事件缓存
      *
@@ -113,7 +237,7 @@ public class ElegantBusService extends Service {
      */
     private void putEventToCache(final EventWrapper eventWrapper) {
         ElegantLog.d("Service receive event, add to cache, Event = " + eventWrapper.toString());
-        EventDataBase.getInstance().eventDao().insert(DataUtil.convert(eventWrapper));
+        mStickyCache.put(eventWrapper);
     }
 
     /**
@@ -123,29 +247,59 @@ public class ElegantBusService extends Service {
      */
     private void removeEventFromCache(final EventWrapper eventWrapper) {
         ElegantLog.d("Service receive event, remove from cache, Event = " + eventWrapper.toString());
-        EventDataBase.getInstance().eventDao().delete(DataUtil.convert(eventWrapper));
+        mStickyCache.remove(eventWrapper);
     }
 
     /**
-     * 转发事件总线
+     * 转发进程发送的事件，延迟发送的值作为粘性事件转发，其他进程中之后才开始观察的普通观察者不会收到
+     * 按原来的顺序分段转发
      *
-     * @param eventWrapper 发送值
+     * @param eventWrappers 同一个进程发送的一批事件
      */
-    private void callbackToOtherProcess(EventWrapper eventWrapper, int what) {
-        int count = mRemoteCallbackList.size();
-        for (int i = 0; i < count; i++) {
-            ProcessCallback callback = mRemoteCallbackList.get(i);
-            if (callback == null) continue;
-            try {
-                if (ElegantUtil.isSameProcess(callback.processName(), eventWrapper.processName)) {
-                    ElegantLog.d("This is in same process, already posted, Event = " + eventWrapper);
-                } else {
-                    ElegantLog.d("call back " + what + " to other process : " + callback.processName() + ", Event = " +
-                            eventWrapper);
-                    callback.call(eventWrapper, what);
-                }
-            } catch (RemoteException e) {
-                e.printStackTrace();
+    private void forwardPosts(List<EventWrapper> eventWrappers) {
+        int start = 0;
+        for (int i = 1; i <= eventWrappers.size(); i++) {
+            boolean deferred = eventWrappers.get(start).deferred;
+            if (i < eventWrappers.size() && eventWrappers.get(i).deferred == deferred) {
+                continue;
+            }
+            List<EventWrapper> part = start == 0 && i == eventWrappers.size()
+                    ? eventWrappers : new ArrayList<>(eventWrappers.subList(start, i));
+            callbackToOtherProcess(part, deferred ? MultiProcess.MSG_ON_POST_STICKY : MultiProcess.MSG_ON_POST);
+            start = i;
+        }
+    }
+
+    /**
+     * 转发事件总线，放入每个进程的待发送队列，只包含其他进程发送的事件
+     *
+     * @param eventWrappers 同一个进程发送的一批事件
+     * @param what          消息类型
+     */
+    private void callbackToOtherProcess(List<EventWrapper> eventWrappers, int what) {
+        if (what == MultiProcess.MSG_ON_POST || what == MultiProcess.MSG_ON_POST_STICKY) {
+            // 普通事件只发给观察了这个事件的进程，重置粘性事件发给所有进程
+            Map<ProcessOutbox, List<EventWrapper>> routes = mInterestIndex.route(eventWrappers);
+            if (!routes.isEmpty()) {
+                // 只序列化一次，发往每个进程时共用
+                PackedEvents.prepare(eventWrappers);
+            }
+            for (Map.Entry<ProcessOutbox, List<EventWrapper>> entry : routes.entrySet()) {
+                ElegantLog.d("call back " + what + " to other process : " + entry.getKey().processName +
+                        ", size = " + entry.getValue().size());
+                entry.getKey().offer(entry.getValue(), what);
+            }
+            return;
+        }
+        PackedEvents.prepare(eventWrappers);
+        for (ProcessCallback callback : mRemoteCallbackList) {
+            List<EventWrapper> batch = DataUtil.filterOtherProcess(callback.outbox.process, eventWrappers);
+            if (batch.isEmpty()) {
+                ElegantLog.d("This is in same process, already posted, size = " + eventWrappers.size());
+            } else {
+                ElegantLog.d("call back " + what + " to other process : " + callback.outbox.processName +
+                        ", size = " + batch.size());
+                callback.outbox.offer(batch, what);
             }
         }
     }
@@ -154,19 +308,47 @@ public class ElegantBusService extends Service {
      * 转发 粘性事件到新的进程
      *
      * @param callback 进程回调
-     * @throws RemoteException 异常
+     * @param sticky   是否需要发送粘性事件，服务进程自己不需要
+     * @param groups   只发送这些分组的粘性事件，null 表示全部
      */
-    private void postStickyValueToNewProcess(final ProcessCallback callback) throws RemoteException {
+    private void postStickyValueToNewProcess(final ProcessCallback callback, final boolean sticky,
+                                             final List<String> groups) {
         BusFactory.ready().getSingleExecutorService().execute(() -> {
-            try {
-                ElegantLog.d("Post all sticky event to new process : " + callback.processName());
-                List<EventBean> caches = EventDataBase.getInstance().eventDao().getAllList();
-                for (EventBean item : caches) {
-                    callback.call(DataUtil.convert(item), MultiProcess.MSG_ON_POST_STICKY);
+            if (!sticky) {
+                List<EventWrapper> eventWrappers = mStickyCache.all();
+                List<String> keys = new ArrayList<>(eventWrappers.size());
+                for (EventWrapper item : eventWrappers) {
+                    keys.add(item.getKey());
                 }
-            } catch (RemoteException e) {
-                e.printStackTrace();
+                mInterestIndex.markDelivered(callback.outbox, keys);
+                return;
+            }
+            // 按页放入待发送队列，每页一次调用，不超过 Binder 缓冲区
+            StickyPage page = mStickyCache.page(groups, 0);
+            while (!page.events.isEmpty()) {
+                ElegantLog.d("Post sticky event to new process : " + callback.outbox.processName +
+                        ", size = " + page.events.size());
+                mInterestIndex.markDelivered(callback.outbox, page.keys());
+                callback.outbox.offer(page.events, MultiProcess.MSG_ON_POST_STICKY);
+                if (!page.more) {
+                    break;
+                }
+                page = mStickyCache.page(groups, page.version);
             }
         });
     }
+
+    /**
+     * 进程重新开始观察事件时，补发错过的最新值
+     *
+     * @param outbox 进程的待发送队列
+     * @param key    事件 key
+     */
+    private void postStickyValueToProcess(final ProcessOutbox outbox, final String key) {
+        EventWrapper eventWrapper = mStickyCache.get(key);
+        if (eventWrapper != null) {
+            ElegantLog.d("Post missed sticky event to process : " + outbox.processName + ", key = " + key);
+            outbox.offer(Collections.singletonList(eventWrapper), MultiProcess.MSG_ON_POST_STICKY);
+        }
+    }
 }
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：IProcessCallback.java  模块：ElegantBus.ipc.main  项目：ElegantBus
- * 当前修改时间：2023年06月01日 17:08:51
- * 上次修改时间：2023年06月01日 17:08:39
+ * 当前修改时间：2026年10月17日 22:44:20
+ * 上次修改时间：2026年10月17日 22:14:23
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -14,9 +14,17 @@ package cody.bus;
 
 import android.os.RemoteException;
 
+import java.util.List;
+
 interface IProcessCallback {
 
     String processName() throws RemoteException;
 
     void call(EventWrapper eventWrapper, int what) throws RemoteException;
+
+    void callBatch(List<EventWrapper> eventWrappers, int what) throws RemoteException;
+
+    void onInterest(long[] bits) throws RemoteException;
+
+    void onProcessGone(int origin) throws RemoteException;
 }
\ No newline at end of file
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：IProcessManager.java  模块：ElegantBus.ipc.main  项目：ElegantBus
- * 当前修改时间：2023年06月01日 17:08:51
- * 上次修改时间：2023年06月01日 11:29:01
+ * 当前修改时间：2026年10月17日 21:49:21
+ * 上次修改时间：2026年10月17日 21:41:18
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -14,6 +14,8 @@ package cody.bus;
 
 import android.os.RemoteException;
 
+import java.util.List;
+
 interface IProcessManager {
     void register(IProcessCallback processCallback) throws RemoteException;
 
@@ -22,4 +24,10 @@ interface IProcessManager {
     void resetSticky(EventWrapper eventWrapper) throws RemoteException;
 
     void postToProcessManager(EventWrapper eventWrapper) throws RemoteException;
+
+    void postBatchToProcessManager(List<EventWrapper> eventWrappers) throws RemoteException;
+
+    void subscribe(IProcessCallback processCallback, String key) throws RemoteException;
+
+    void unsubscribe(IProcessCallback processCallback, String key) throws RemoteException;
 }
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：MultiProcessImpl.java  模块：ElegantBus.ipc  项目：ElegantBus
- * 当前修改时间：2023年06月05日 20:59:58
- * 上次修改时间：2023年06月05日 20:43:19
+ * 当前修改时间：2026年10月17日 23:03:23
+ * 上次修改时间：2026年10月17日 22:44:20
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -19,6 +19,11 @@ import android.content.ServiceConnection;
 import android.os.IBinder;
 import android.os.RemoteException;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * 支持进程间事件总线的扩展，每个进程有一个实例 messenger 实现
  */
@@ -27,6 +32,32 @@ public class MultiProcessImpl implements IProcessCallback, MultiProcess {
     private String mPkgName;
     private Context mContext;
     private ProcessManager mProcessManager;
+    // 当前进程有观察者的事件，重新连接服务时需要重新订阅
+    private final Set<String> mInterests = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final EventBatcher mEventBatcher = new EventBatcher(batch -> {
+        try {
+            send(batch);
+        } finally {
+            SharedPayload.release(batch);
+        }
+    });
+
+    // 没有其他进程观察的事件不编码也不发送，只延迟发送最新值
+    private final InterestFilter mInterestFilter = new InterestFilter((eventWrapper, value, deferred) -> {
+        EventWrapper encoded = ElegantUtil.encode(eventWrapper, value);
+        encoded.deferred = deferred;
+        mEventBatcher.add(SharedPayload.share(encoded));
+    });
+
+    private void send(List<EventWrapper> batch) throws RemoteException {
+        if (isBound()) {
+            if (batch.size() == 1) {
+                mProcessManager.postToProcessManager(batch.get(0));
+            } else {
+                mProcessManager.postBatchToProcessManager(batch);
+            }
+        }
+    }
 
     MultiProcessImpl() {
     }
@@ -58,24 +89,55 @@ public class MultiProcessImpl implements IProcessCallback, MultiProcess {
 
     @Override
     public <T> void postToProcessManager(EventWrapper eventWrapper, T value) {
-        try {
-            if (isBound()) {
-                mProcessManager.postToProcessManager(ElegantUtil.encode(eventWrapper, value));
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        mInterestFilter.post(eventWrapper, value);
     }
 
     @Override
     public void resetSticky(final EventWrapper eventWrapper) {
-        try {
-            if (isBound()) {
-                mProcessManager.resetSticky(eventWrapper);
+        mInterestFilter.drop(eventWrapper.getKey());
+        // 之前发送的事件先发出去
+        mEventBatcher.flush();
+        BusFactory.ready().executeIo(() -> {
+            try {
+                if (isBound()) {
+                    mProcessManager.resetSticky(eventWrapper);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        });
+    }
+
+    @Override
+    public void subscribe(final EventWrapper eventWrapper) {
+        final String key = eventWrapper.getKey();
+        mInterests.add(key);
+        // 没有观察期间服务进程不转发这个事件，之后收到的序号不连续，不需要等待
+        ReorderBuffer.reset(eventWrapper);
+        BusFactory.ready().executeIo(() -> {
+            try {
+                if (isBound()) {
+                    mProcessManager.subscribe(MultiProcessImpl.this, key);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    @Override
+    public void unsubscribe(final EventWrapper eventWrapper) {
+        final String key = eventWrapper.getKey();
+        mInterests.remove(key);
+        BusFactory.ready().executeIo(() -> {
+            try {
+                if (isBound()) {
+                    mProcessManager.unsubscribe(MultiProcessImpl.this, key);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
     }
 
     @Override
@@ -85,9 +147,25 @@ public class MultiProcessImpl implements IProcessCallback, MultiProcess {
 
     @Override
     public void call(final EventWrapper eventWrapper, final int what) {
-        BusFactory.ready().getSingleExecutorService().execute(() -> {
-            ElegantUtil.decode(eventWrapper, what);
-        });
+        // 在事件的解码线程中从共享内存读出数据
+        ElegantUtil.receive(eventWrapper, what, SharedPayload::restore);
+    }
+
+    @Override
+    public void onInterest(final long[] bits) {
+        mInterestFilter.onInterestChanged(bits);
+    }
+
+    @Override
+    public void onProcessGone(final int origin) {
+        ReorderBuffer.evict(origin);
+    }
+
+    @Override
+    public void callBatch(final List<EventWrapper> eventWrappers, final int what) {
+        for (EventWrapper eventWrapper : eventWrappers) {
+            ElegantUtil.receive(eventWrapper, what, SharedPayload::restore);
+        }
     }
 
     @Override
@@ -158,7 +236,15 @@ public class MultiProcessImpl implements IProcessCallback, MultiProcess {
             }
             try {
                 service.linkToDeath(mDeathRecipient, 0);
+                // 服务进程重启后发送进程编号重新分配，之前的序号不再有效
+                ReorderBuffer.clear();
+                // 服务进程推送新的位图之前全部发送
+                mInterestFilter.onInterestChanged(null);
                 mProcessManager.register(MultiProcessImpl.this);
+                // 连接之前或者服务重启之前的订阅重新发送
+                for (String key : mInterests) {
+                    mProcessManager.subscribe(MultiProcessImpl.this, key);
+                }
             } catch (RemoteException e) {
                 e.printStackTrace();
             }
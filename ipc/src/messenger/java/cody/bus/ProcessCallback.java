@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ProcessCallback.java  模块：ElegantBus.ipc.main  项目：ElegantBus
- * 当前修改时间：2023年06月01日 17:08:51
- * 上次修改时间：2023年06月01日 14:10:34
+ * 当前修改时间：2026年10月17日 22:44:20
+ * 上次修改时间：2026年10月17日 22:14:23
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -17,15 +17,30 @@ import android.os.Message;
 import android.os.Messenger;
 import android.os.RemoteException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ProcessCallback implements IProcessCallback {
     private final Messenger mServiceMessenger;
     private final String mProcessName;
     private final Messenger messenger;
+    // 发往这个进程的待发送队列，Messenger 本身就是 oneway 调用
+    final ProcessOutbox outbox;
 
-    public ProcessCallback(Messenger serviceMessenger, String processName, Messenger messenger) {
+    ProcessCallback(Messenger serviceMessenger, ProcessRecord process, Messenger messenger) {
         mServiceMessenger = serviceMessenger;
-        mProcessName = processName;
+        mProcessName = process.name;
         this.messenger = messenger;
+        outbox = new ProcessOutbox(process, (eventWrappers, what) -> {
+            byte[] packed = PackedEvents.pack(eventWrappers);
+            if (packed != null) {
+                callPacked(packed, what);
+            } else if (eventWrappers.size() == 1) {
+                call(eventWrappers.get(0), what);
+            } else {
+                callBatch(eventWrappers, what);
+            }
+        });
     }
 
     public Messenger getMessenger() {
@@ -46,4 +61,48 @@ public class ProcessCallback implements IProcessCallback {
         message.setData(data);
         messenger.send(message);
     }
+
+    @Override
+    public void onInterest(final long[] bits) throws RemoteException {
+        Message message = Message.obtain(null, ElegantBusService.MSG_ON_INTEREST);
+        message.replyTo = mServiceMessenger;
+        Bundle data = new Bundle();
+        data.putLongArray(ElegantBusService.MSG_INTEREST, bits);
+        message.setData(data);
+        messenger.send(message);
+    }
+
+    @Override
+    public void onProcessGone(final int origin) throws RemoteException {
+        Message message = Message.obtain(null, ElegantBusService.MSG_ON_PROCESS_GONE);
+        message.replyTo = mServiceMessenger;
+        message.arg1 = origin;
+        messenger.send(message);
+    }
+
+    /**
+     * 发送服务进程已经序列化好的一批事件，见 {@link PackedEvents}
+     *
+     * @param packed 拼接后的数据
+     * @param what   消息类型
+     * @throws RemoteException 发送失败
+     */
+    void callPacked(final byte[] packed, final int what) throws RemoteException {
+        Message message = Message.obtain(null, what);
+        message.replyTo = mServiceMessenger;
+        Bundle data = new Bundle();
+        data.putByteArray(ElegantBusService.MSG_PACKED, packed);
+        message.setData(data);
+        messenger.send(message);
+    }
+
+    @Override
+    public void callBatch(final List<EventWrapper> eventWrappers, final int what) throws RemoteException {
+        Message message = Message.obtain(null, what);
+        message.replyTo = mServiceMessenger;
+        Bundle data = new Bundle();
+        data.putParcelableArrayList(ElegantBusService.MSG_DATA_LIST, new ArrayList<>(eventWrappers));
+        message.setData(data);
+        messenger.send(message);
+    }
 }
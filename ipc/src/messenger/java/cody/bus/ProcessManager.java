@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ProcessManager.java  模块：ElegantBus.ipc.main  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 10:40:09
+ * 当前修改时间：2026年10月17日 22:44:20
+ * 上次修改时间：2026年10月17日 22:14:23
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc.main
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -17,8 +17,12 @@ import android.os.Handler;
 import android.os.IBinder;
 import android.os.Message;
 import android.os.Messenger;
+import android.os.Process;
 import android.os.RemoteException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ProcessManager extends Handler implements IProcessManager {
     Messenger mServiceMessenger;
     Messenger mProcessMessenger;
@@ -46,9 +50,21 @@ public class ProcessManager extends Handler implements IProcessManager {
         // fix BadParcelableException: ClassNotFoundException when unmarshalling
         msg.getData().setClassLoader(getClass().getClassLoader());
         EventWrapper eventWrapper = msg.getData().getParcelable(MultiProcess.MSG_DATA);
-        if (eventWrapper != null && mProcessCallback != null) {
+        ArrayList<EventWrapper> eventWrappers = msg.getData().getParcelableArrayList(ElegantBusService.MSG_DATA_LIST);
+        byte[] packed = msg.getData().getByteArray(ElegantBusService.MSG_PACKED);
+        if (mProcessCallback != null) {
             try {
-                mProcessCallback.call(eventWrapper, msg.what);
+                if (msg.what == ElegantBusService.MSG_ON_INTEREST) {
+                    mProcessCallback.onInterest(msg.getData().getLongArray(ElegantBusService.MSG_INTEREST));
+                } else if (msg.what == ElegantBusService.MSG_ON_PROCESS_GONE) {
+                    mProcessCallback.onProcessGone(msg.arg1);
+                } else if (eventWrapper != null) {
+                    mProcessCallback.call(eventWrapper, msg.what);
+                } else if (eventWrappers != null) {
+                    mProcessCallback.callBatch(eventWrappers, msg.what);
+                } else if (packed != null) {
+                    mProcessCallback.callBatch(PackedEvents.unpack(packed), msg.what);
+                }
             } catch (RemoteException e) {
                 e.printStackTrace();
             }
@@ -59,7 +75,15 @@ public class ProcessManager extends Handler implements IProcessManager {
     @Override
     public void register(IProcessCallback processCallback) throws RemoteException {
         mProcessCallback = processCallback;
-        sendWithName(ElegantBusService.MSG_REGISTER);
+        Bundle data = new Bundle();
+        data.putString(ElegantBusService.MSG_PROCESS_NAME, mProcessCallback.processName());
+        data.putInt(ElegantBusService.MSG_PID, Process.myPid());
+        data.putInt(ElegantBusService.MSG_UID, Process.myUid());
+        List<String> groups = StickyPage.getSyncGroups();
+        if (groups != null) {
+            data.putStringArrayList(ElegantBusService.MSG_GROUPS, new ArrayList<>(groups));
+        }
+        send(ElegantBusService.MSG_REGISTER, data);
     }
 
     @Override
@@ -77,6 +101,27 @@ public class ProcessManager extends Handler implements IProcessManager {
         send(eventWrapper, ElegantBusService.MSG_POST_TO_SERVICE);
     }
 
+    @Override
+    public void postBatchToProcessManager(final List<EventWrapper> eventWrappers) throws RemoteException {
+        Bundle data = new Bundle();
+        data.putParcelableArrayList(ElegantBusService.MSG_DATA_LIST, new ArrayList<>(eventWrappers));
+        send(ElegantBusService.MSG_POST_BATCH_TO_SERVICE, data);
+    }
+
+    @Override
+    public void subscribe(final IProcessCallback processCallback, final String key) throws RemoteException {
+        Bundle data = new Bundle();
+        data.putString(ElegantBusService.MSG_KEY, key);
+        send(ElegantBusService.MSG_SUBSCRIBE, data);
+    }
+
+    @Override
+    public void unsubscribe(final IProcessCallback processCallback, final String key) throws RemoteException {
+        Bundle data = new Bundle();
+        data.putString(ElegantBusService.MSG_KEY, key);
+        send(ElegantBusService.MSG_UNSUBSCRIBE, data);
+    }
+
     private void sendWithName(final int msg) throws RemoteException {
         Bundle data = new Bundle();
         data.putString(ElegantBusService.MSG_PROCESS_NAME, mProcessCallback.processName());
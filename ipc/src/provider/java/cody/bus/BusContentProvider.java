@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：BusContentProvider.java  模块：ElegantBus.ipc  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 10:28:01
+ * 当前修改时间：2026年10月17日 21:49:21
+ * 上次修改时间：2026年10月17日 21:41:18
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -25,6 +25,13 @@ import android.text.TextUtils;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 import cody.bus.db.EventBean;
 import cody.bus.db.EventDataBase;
 
@@ -32,11 +39,14 @@ public class BusContentProvider extends ContentProvider {
     //用来存放所有合法的Uri容器
     private static final String AUTHORITY_END = ".BusContentProvider";
     private static final String PATH_CACHES = "/Caches";
-    private static final String PATH_CACHE = "/Caches/item";
+    static final String PATH_CACHE = "/Caches/item";
     public static String mServiceProcessName;
     public static final UriMatcher sUriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
     private static final int CACHES = 1;
     private static final int CACHE = 2;
+    // 批量发送事件，和 MultiProcess 中的消息区分开
+    public static final int MSG_ON_POST_BATCH = 0x08;
+    public static final String MSG_DATA_LIST = "MSG_DATA_LIST";
     private Context mContext;
     private Uri mUri;
 
@@ -81,6 +91,23 @@ public class BusContentProvider extends ContentProvider {
                         }
                     }
                     break;
+                case MSG_ON_POST_BATCH:
+                    if (extras != null) {
+                        extras.setClassLoader(getClass().getClassLoader());
+                        ArrayList<EventWrapper> eventWrappers = extras.getParcelableArrayList(MSG_DATA_LIST);
+                        if (eventWrappers != null && !eventWrappers.isEmpty()) {
+                            List<EventBean> beans = new ArrayList<>(eventWrappers.size());
+                            // 同一批事件只通知一次，接收进程一次查询所有变化的事件
+                            Set<String> keys = new LinkedHashSet<>();
+                            for (EventWrapper eventWrapper : eventWrappers) {
+                                beans.add(DataUtil.convert(eventWrapper));
+                                keys.add(eventWrapper.getKey());
+                            }
+                            EventDataBase.getInstance().eventDao().insertAll(beans);
+                            notifyChange(keys, MultiProcess.MSG_ON_POST);
+                        }
+                    }
+                    break;
                 case MultiProcess.MSG_ON_POST_STICKY:
                     mContext.getContentResolver().notifyChange(ContentUris.withAppendedId(mUri, what), null);
                     break;
@@ -103,13 +130,18 @@ public class BusContentProvider extends ContentProvider {
     }
 
     private void notifyChange(String key, int what) {
-        ElegantLog.d("BusContentProvider notifyChange. key : " + key + ", what " + what);
-        Uri uri = new Uri.Builder().scheme("content")
+        notifyChange(Collections.singleton(key), what);
+    }
+
+    private void notifyChange(Collection<String> keys, int what) {
+        ElegantLog.d("BusContentProvider notifyChange. keys : " + keys + ", what " + what);
+        Uri.Builder builder = new Uri.Builder().scheme("content")
                 .authority(ElegantUtil.getHostPackageName(mContext) + AUTHORITY_END)
-                .path(PATH_CACHE)
-                .appendQueryParameter(MultiProcess.MSG_DATA, key)
-                .build();
-        mContext.getContentResolver().notifyChange(ContentUris.withAppendedId(uri, what), null);
+                .path(PATH_CACHE);
+        for (String key : keys) {
+            builder.appendQueryParameter(MultiProcess.MSG_DATA, key);
+        }
+        mContext.getContentResolver().notifyChange(ContentUris.withAppendedId(builder.build(), what), null);
     }
 
     @Nullable
@@ -123,6 +155,10 @@ public class BusContentProvider extends ContentProvider {
             return EventDataBase.getInstance().eventDao().getAllCursor();
         }
         if (match == CACHE) {
+            List<String> keys = uri.getQueryParameters(MultiProcess.MSG_DATA);
+            if (keys.size() > 1) {
+                return EventDataBase.getInstance().eventDao().getByKeysCursor(keys);
+            }
             selection = uri.getQueryParameter(MultiProcess.MSG_DATA);
             return EventDataBase.getInstance().eventDao().getByKeyCursor(selection);
         }
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：MultiProcessImpl.java  模块：ElegantBus.ipc  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 10:33:35
+ * 当前修改时间：2026年10月17日 21:49:21
+ * 上次修改时间：2026年10月17日 21:41:18
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -25,6 +25,15 @@ public class MultiProcessImpl implements MultiProcess {
     private String mPkgName;
     private Context mContext;
     private IProcessManager mProcessManager;
+    private final EventBatcher mEventBatcher = new EventBatcher(batch -> {
+        if (isBound()) {
+            if (batch.size() == 1) {
+                mProcessManager.postToProcessManager(batch.get(0));
+            } else {
+                mProcessManager.postBatchToProcessManager(batch);
+            }
+        }
+    });
 
     MultiProcessImpl() {
     }
@@ -57,23 +66,35 @@ public class MultiProcessImpl implements MultiProcess {
 
     @Override
     public <T> void postToProcessManager(EventWrapper eventWrapper, T value) {
-        try {
-            if (isBound()) {
-                mProcessManager.postToProcessManager(ElegantUtil.encode(eventWrapper, value));
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        mEventBatcher.add(ElegantUtil.encode(eventWrapper, value));
     }
 
     @Override
     public void resetSticky(final EventWrapper eventWrapper) {
-        try {
-            if (isBound()) {
-                mProcessManager.resetSticky(eventWrapper);
+        // 之前发送的事件先发出去
+        mEventBatcher.flush();
+        BusFactory.ready().executeIo(() -> {
+            try {
+                if (isBound()) {
+                    mProcessManager.resetSticky(eventWrapper);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+        });
+    }
+
+    @Override
+    public void subscribe(final EventWrapper eventWrapper) {
+        if (isBound()) {
+            mProcessManager.subscribe(eventWrapper.getKey());
+        }
+    }
+
+    @Override
+    public void unsubscribe(final EventWrapper eventWrapper) {
+        if (isBound()) {
+            mProcessManager.unsubscribe(eventWrapper.getKey());
         }
     }
 
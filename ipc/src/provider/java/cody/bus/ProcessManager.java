@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：ProcessManager.java  模块：ElegantBus.ipc  项目：ElegantBus
- * 当前修改时间：2023年06月06日 11:07:31
- * 上次修改时间：2023年06月06日 09:46:27
+ * 当前修改时间：2026年10月17日 23:03:50
+ * 上次修改时间：2026年10月17日 22:18:30
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.ipc
- * Copyright (c) 2023
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -24,8 +24,17 @@ import android.os.RemoteException;
 
 import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * 实际是个Proxy
+ * provider 方式由系统通知所有进程，没有服务进程转发，在当前进程过滤：
+ * 没有观察者的事件不解码，开始观察时再查询错过的最新值
  */
 public class ProcessManager extends ContentObserver implements IProcessManager {
     public static MultiProcess ready() {
@@ -39,6 +48,10 @@ public class ProcessManager extends ContentObserver implements IProcessManager {
     private final Uri mUri;
     private boolean mInitialized = false;
     private ContentProviderClient mContentProviderClient;
+    // 当前进程有观察者的事件
+    private final Set<String> mInterests = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // 没有观察者时错过的事件，只在跨进程编解码线程中使用
+    private final Set<String> mMissed = new HashSet<>();
 
     public ProcessManager(Context context) {
         super(new Handler());
@@ -72,10 +85,14 @@ public class ProcessManager extends ContentObserver implements IProcessManager {
                         EventWrapper eventWrapper = DataUtil.convert(cursor);
                         if ((ElegantUtil.isSameProcess(ElegantUtil.getProcessName(), eventWrapper.processName) && mInitialized)) {
                             ElegantLog.d("This is in same process, already posted, Event = " + eventWrapper);
+                        } else if (mInitialized && what == MultiProcess.MSG_ON_POST
+                                && !mInterests.contains(eventWrapper.getKey())) {
+                            mMissed.add(eventWrapper.getKey());
                         } else {
+                            mMissed.remove(eventWrapper.getKey());
                             ElegantLog.d("call back " + what + " to other process : " +
                                     ElegantUtil.getProcessName() + ", Event = " + eventWrapper);
-                            ElegantUtil.decode(eventWrapper, what);
+                            ElegantUtil.receive(eventWrapper, what);
                         }
                     }
                 }
@@ -84,6 +101,33 @@ public class ProcessManager extends ContentObserver implements IProcessManager {
         }
     }
 
+    @Override
+    public void subscribe(final String key) {
+        mInterests.add(key);
+        BusFactory.ready().getSingleExecutorService().execute(() -> {
+            if (!mMissed.remove(key) || !mInterests.contains(key)) {
+                return;
+            }
+            Uri uri = ContentUris.withAppendedId(new Uri.Builder().scheme("content")
+                    .authority(mUri.getAuthority())
+                    .path(BusContentProvider.PATH_CACHE)
+                    .appendQueryParameter(MultiProcess.MSG_DATA, key)
+                    .build(), MultiProcess.MSG_ON_POST_STICKY);
+            Cursor cursor = mContext.getContentResolver().query(uri, null, null, null, null);
+            if (cursor != null) {
+                while (cursor.moveToNext()) {
+                    ElegantUtil.receive(DataUtil.convert(cursor), MultiProcess.MSG_ON_POST_STICKY);
+                }
+                cursor.close();
+            }
+        });
+    }
+
+    @Override
+    public void unsubscribe(final String key) {
+        mInterests.remove(key);
+    }
+
     @Override
     public boolean register() throws RemoteException {
         ElegantLog.d("register mProcessName : " + ElegantUtil.getProcessName() + ",mUri : " + mUri);
@@ -144,6 +188,19 @@ public class ProcessManager extends ContentObserver implements IProcessManager {
         callProvider(MultiProcess.MSG_ON_POST, eventWrapper.getKey(), bundle);
     }
 
+    @Override
+    public void postBatchToProcessManager(List<EventWrapper> eventWrappers) throws RemoteException {
+        ElegantLog.d("postBatchToProcessManager mProcessName : " + ElegantUtil.getProcessName() + ", size : " +
+                eventWrappers.size());
+        if (ElegantUtil.isServiceProcess(ElegantUtil.getProcessName())) {
+            ElegantLog.d("postBatchToProcessManager isServiceProcess");
+            return;
+        }
+        Bundle bundle = new Bundle();
+        bundle.putParcelableArrayList(BusContentProvider.MSG_DATA_LIST, new ArrayList<>(eventWrappers));
+        callProvider(BusContentProvider.MSG_ON_POST_BATCH, mUri.toString(), bundle);
+    }
+
     private void callProvider(int method, String arg, Bundle extras) throws RemoteException {
         if (isBound()) {
             mContentProviderClient.call(String.valueOf(method), arg, extras);
@@ -0,0 +1,62 @@
+/*
+ * ************************************************************
+ * 文件：PackedEventsTest.java  模块：ElegantBus.ipc  项目：ElegantBus
+ * 当前修改时间：2026年10月17日 23:08:39
+ * 上次修改时间：2026年10月17日 23:08:39
+ * 作者：Cody.yi   https://github.com/codyer
+ *
+ * 描述：ElegantBus.ipc
+ * Copyright (c) 2026
+ * ************************************************************
+ */
+
+package cody.bus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 发往一个进程的事件序列化后的数据按发送顺序拼接，有事件没有序列化时按原来的方式发送
+ */
+public class PackedEventsTest {
+
+    private static EventWrapper event(byte[] packed) {
+        EventWrapper eventWrapper = new EventWrapper("sender", "packed", "event", String.class.getName(), null, true);
+        eventWrapper.packed = packed;
+        return eventWrapper;
+    }
+
+    @Test
+    public void singleEventIsNotCopied() {
+        byte[] packed = {1, 2, 3};
+        List<EventWrapper> eventWrappers = new ArrayList<>();
+        eventWrappers.add(event(packed));
+        assertSame(packed, PackedEvents.pack(eventWrappers));
+    }
+
+    @Test
+    public void eventsAreJoinedInOrder() {
+        List<EventWrapper> eventWrappers = new ArrayList<>();
+        eventWrappers.add(event(new byte[]{1, 2}));
+        eventWrappers.add(event(new byte[0]));
+        eventWrappers.add(event(new byte[]{3}));
+        eventWrappers.add(event(new byte[]{4, 5, 6}));
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6}, PackedEvents.pack(eventWrappers));
+    }
+
+    @Test
+    public void unpackedEventFallsBack() {
+        List<EventWrapper> eventWrappers = new ArrayList<>();
+        eventWrappers.add(event(new byte[]{1}));
+        eventWrappers.add(event(null));
+        assertNull(PackedEvents.pack(eventWrappers));
+        eventWrappers.remove(0);
+        assertNull(PackedEvents.pack(eventWrappers));
+    }
+}
@@ -1,12 +1,12 @@
 /*
  * ************************************************************
  * 文件：Event.java  模块：ElegantBus.lib.main  项目：ElegantBus
- * 当前修改时间：2022年09月12日 17:58:58
- * 上次修改时间：2022年09月12日 17:47:29
+ * 当前修改时间：2026年10月17日 21:37:33
+ * 上次修改时间：2022年09月12日 17:58:58
  * 作者：Cody.yi   https://github.com/codyer
  *
  * 描述：ElegantBus.lib.main
- * Copyright (c) 2022
+ * Copyright (c) 2026
  * ************************************************************
  */
 
@@ -52,4 +52,10 @@ public @interface Event {
      * @return 是否激活, 可以根据需要配置是否激活事件分发，eg：debug开启，release关闭
      */
     boolean active() default true;
+
+    /**
+     * @return 是否只保留最新值，高频发送的状态类事件（位置、进度、传感器等）使用，
+     * 主线程还没有分发或者还没有发送到其他进程的旧值会被新值覆盖
+     */
+    boolean conflate() default false;
 }